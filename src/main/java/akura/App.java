@@ -1,15 +1,36 @@
 package akura;
 
+import akura.cloundnlp.DeviceCatalog;
+import akura.corenlp.CoreNlpBatchAnnotator;
+import akura.corenlp.CoreNlpPipelines;
 import akura.cloundnlp.dtos.OntologyMapDto;
+import akura.pipeline.StageExecutors;
+import akura.service.BatchExtractionService;
+import akura.service.CallbackUrlValidator;
 import akura.service.EntityExtractorService;
+import akura.service.ExtractionJob;
+import akura.service.ExtractionJobService;
 import akura.service.SparkMiddleware;
+import akura.utility.APIConnection;
 import akura.utility.EntityServiceResponse;
+import akura.utility.GsonProvider;
+import akura.utility.LanguageServiceClientPool;
+import akura.utility.Logger;
+import akura.utility.Metrics;
+import akura.utility.NlpRequestExecutor;
 import akura.utility.SentenceServiceResponse;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import spark.Request;
+import spark.Response;
 import spark.Spark;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 import static spark.Spark.*;
 
@@ -20,8 +41,30 @@ public class App {
 
     public static void main(String[] args) {
 
-        Gson gson = new Gson();
+        Gson gson = GsonProvider.compact();
         EntityExtractorService entityExtractorService = new EntityExtractorService();
+        ExtractionJobService extractionJobService = new ExtractionJobService();
+        BatchExtractionService batchExtractionService = new BatchExtractionService(entityExtractorService);
+
+        LanguageServiceClientPool languageServiceClientPool = LanguageServiceClientPool.getInstance();
+        try {
+            languageServiceClientPool.warmUp();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        DeviceCatalog.getInstance();
+        CoreNlpPipelines.startWarmUp();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            Spark.stop();
+            extractionJobService.shutdown();
+            batchExtractionService.shutdown();
+            StageExecutors.shutdown();
+            NlpRequestExecutor.shutdown();
+            CoreNlpBatchAnnotator.shutdown();
+            languageServiceClientPool.shutdown();
+            APIConnection.shutdown();
+            Logger.shutdown();
+        }));
 
         port(4568);
         Spark.staticFileLocation("/public");
@@ -35,15 +78,94 @@ public class App {
         post("/extract-entity", (req, res) -> {
             EntityServiceResponse entityServiceResponse = gson.fromJson(req.body(), EntityServiceResponse.class);
             List<OntologyMapDto> response = entityExtractorService.extractEntity(entityServiceResponse.text, entityServiceResponse.entity);
-            return new GsonBuilder().setPrettyPrinting().create().toJson(response);
+            return writeJson(req, res, response);
         });
 
         post("/modify-sentence", (req, res) -> {
             SentenceServiceResponse sentenceServiceResponse = gson.fromJson(req.body(), SentenceServiceResponse.class);
             List<String> response = entityExtractorService.modifiedSentenceList(sentenceServiceResponse.text, sentenceServiceResponse.entity);
-            return new GsonBuilder().setPrettyPrinting().create().toJson(response);
+            return writeJson(req, res, response);
+        });
+
+        post("/extract-entity/async", (req, res) -> {
+            EntityServiceResponse entityServiceResponse = gson.fromJson(req.body(), EntityServiceResponse.class);
+            ExtractionJob job = extractionJobService.submit(
+                    () -> entityExtractorService.extractEntity(entityServiceResponse.text, entityServiceResponse.entity),
+                    entityServiceResponse.callbackUrl
+            );
+            res.status(202);
+            return writeJson(req, res, job);
+        });
+
+        post("/modify-sentence/async", (req, res) -> {
+            SentenceServiceResponse sentenceServiceResponse = gson.fromJson(req.body(), SentenceServiceResponse.class);
+            ExtractionJob job = extractionJobService.submit(
+                    () -> entityExtractorService.modifiedSentenceList(sentenceServiceResponse.text, sentenceServiceResponse.entity),
+                    sentenceServiceResponse.callbackUrl
+            );
+            res.status(202);
+            return writeJson(req, res, job);
+        });
+
+        post("/extract-entities/batch", (req, res) -> {
+            res.type("application/x-ndjson");
+            Writer writer = new OutputStreamWriter(res.raw().getOutputStream(), StandardCharsets.UTF_8);
+            batchExtractionService.extract(req.raw().getInputStream(), writer);
+            writer.flush();
+            return "";
+        });
+
+        get("/jobs/:id", (req, res) -> {
+            ExtractionJob job = extractionJobService.getJob(req.params(":id"));
+            if (job == null) {
+                res.status(404);
+                res.type("application/json");
+                return "{\"error\":\"job not found\"}";
+            }
+            return writeJson(req, res, job);
+        });
+
+        get("/ready", (req, res) -> {
+            res.type("application/json");
+            if (!CoreNlpPipelines.isWarm()) {
+                res.status(503);
+                return "{\"status\":\"warming up\"}";
+            }
+            return "{\"status\":\"ready\"}";
+        });
+
+        get("/metrics", (req, res) -> {
+            res.type("text/plain; version=0.0.4");
+            return Metrics.scrape();
+        });
+
+        exception(RejectedExecutionException.class, (exception, req, res) -> {
+            res.status(503);
+            res.type("application/json");
+            res.body("{\"error\":\"extraction queue is full\"}");
+        });
+
+        exception(CallbackUrlValidator.InvalidCallbackUrlException.class, (exception, req, res) -> {
+            res.status(400);
+            res.type("application/json");
+            res.body(gson.toJson(Collections.singletonMap("error", exception.getMessage())));
         });
 
     }
-}
 
+    /**
+     * Stream a response body as json straight to the servlet output stream.
+     * Output is compact unless the request asks for ?pretty=true
+     *
+     * @param req
+     * @param res
+     * @param body
+     * @return empty string, the body has already been written
+     * @throws IOException
+     */
+    private static String writeJson(Request req, Response res, Object body) throws IOException {
+        res.type("application/json");
+        GsonProvider.write(body, res.raw().getOutputStream(), "true".equalsIgnoreCase(req.queryParams("pretty")));
+        return "";
+    }
+}
@@ -0,0 +1,185 @@
+package akura.cloundnlp;
+
+import akura.cloundnlp.dtos.MobileDataSet;
+import akura.utility.EngineConfiguration;
+import akura.utility.LogStage;
+import akura.utility.Logger;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Immutable catalog of known devices loaded from the phone dataset.
+ * Device names are indexed by their character trigrams, so a substring lookup only verifies the devices
+ * sharing the rarest trigram of the searched text instead of scanning the whole dataset.
+ * The catalog is loaded once and reloaded when the dataset file changes.
+ */
+public class DeviceCatalog {
+    private final static int GRAM_LENGTH = 3;
+    private static volatile DeviceCatalog current;
+    private static volatile long lastCheck;
+
+    private final long lastModified;
+    private final List<MobileDataSet> devices;
+    private final String[] normalizedNames;
+    private final Map<String, int[]> gramIndex;
+
+    private DeviceCatalog(long lastModified, List<MobileDataSet> devices) {
+        this.lastModified = lastModified;
+        this.devices = Collections.unmodifiableList(devices);
+        this.normalizedNames = new String[devices.size()];
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int i = 0; i < devices.size(); i++) {
+            String name = devices.get(i).getName();
+            normalizedNames[i] = (name == null) ? "" : name.toLowerCase();
+            for (String gram : grams(normalizedNames[i])) {
+                postings.computeIfAbsent(gram, key -> new ArrayList<>()).add(i);
+            }
+        }
+        this.gramIndex = new HashMap<>(postings.size() * 2);
+        postings.forEach((gram, deviceIndexes) -> gramIndex.put(gram, deviceIndexes.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Provide the catalog of the configured dataset, reloading it when the file has changed since it was loaded
+     *
+     * @return
+     */
+    public static DeviceCatalog getInstance() {
+        DeviceCatalog catalog = current;
+        long now = System.currentTimeMillis();
+        if (catalog != null && now - lastCheck < EngineConfiguration.DEVICE_CATALOG_RELOAD_CHECK_MILLIS) {
+            return catalog;
+        }
+        synchronized (DeviceCatalog.class) {
+            lastCheck = now;
+            Path datasetFile = Paths.get(EngineConfiguration.DEVICE_CATALOG_FILE);
+            long lastModified = lastModified(datasetFile);
+            if (current == null || current.lastModified != lastModified) {
+                DeviceCatalog reloaded = load(datasetFile, lastModified);
+                if (reloaded != null) {
+                    current = reloaded;
+                } else if (current == null) {
+                    current = new DeviceCatalog(lastModified, new ArrayList<>());
+                }
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Find the first device, in dataset order, whose name contains the given text ignoring case
+     *
+     * @param text
+     * @return device or null when no device name contains the text
+     */
+    public MobileDataSet findByNameContaining(String text) {
+        String query = text.toLowerCase();
+        if (query.length() < GRAM_LENGTH) {
+            for (int i = 0; i < normalizedNames.length; i++) {
+                if (normalizedNames[i].contains(query)) {
+                    return devices.get(i);
+                }
+            }
+            return null;
+        }
+        int[] candidates = null;
+        for (String gram : grams(query)) {
+            int[] posting = gramIndex.get(gram);
+            if (posting == null) {
+                return null;
+            }
+            if (candidates == null || posting.length < candidates.length) {
+                candidates = posting;
+            }
+        }
+        for (int deviceIndex : candidates) {
+            if (normalizedNames[deviceIndex].contains(query)) {
+                return devices.get(deviceIndex);
+            }
+        }
+        return null;
+    }
+
+    public List<MobileDataSet> getDevices() {
+        return devices;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static long lastModified(Path datasetFile) {
+        try {
+            return Files.getLastModifiedTime(datasetFile).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parse the dataset file
+     *
+     * @param datasetFile
+     * @param lastModified
+     * @return catalog or null when the file could not be read
+     */
+    private static DeviceCatalog load(Path datasetFile, long lastModified) {
+        JSONParser jsonParser = new JSONParser();
+        List<MobileDataSet> mobileDataSetList = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(datasetFile, StandardCharsets.UTF_8)) {
+            JSONArray jsonArray = (JSONArray) jsonParser.parse(reader);
+
+            for (Object object: jsonArray){
+                JSONObject jsonObject = (JSONObject) object;
+                MobileDataSet mobileDataSet = new MobileDataSet();
+                jsonObject.forEach((key, value) -> {
+
+                    switch (key.toString()){
+                        case "name": mobileDataSet.setName(value.toString());
+                            break;
+                        case "releaseYear": mobileDataSet.setReleaseYear(value.toString());
+                            break;
+                        case "volume_mm_3": mobileDataSet.setVolume_mm_3(value.toString());
+                            break;
+                        case "weight_g": mobileDataSet.setWeight_g(value.toString());
+                            break;
+                        case "screen_size_in": mobileDataSet.setScreen_size_in(value.toString());
+                            break;
+                        case "total_resolution": mobileDataSet.setTotal_resolution(value.toString());
+                            break;
+                        case "OSType": mobileDataSet.setOSType(value.toString());
+                            break;
+                        case "number_of_cores": mobileDataSet.setNumber_of_cores(value.toString());
+                            break;
+                        case "core_clock_rate_gHz": mobileDataSet.setCore_clock_rate_gHz(value.toString());
+                            break;
+                        case "ram": mobileDataSet.setRam(value.toString());
+                            break;
+                        case "primary_camera_MP": mobileDataSet.setPrimary_camera_MP(value.toString());
+                            break;
+                        default:
+                    }
+                });
+                mobileDataSetList.add(mobileDataSet);
+            }
+        } catch (IOException | ParseException e) {
+            Logger.error(LogStage.SPECIFICATION, "Could not load the device catalog " + datasetFile, e);
+            return null;
+        }
+        return new DeviceCatalog(lastModified, mobileDataSetList);
+    }
+}
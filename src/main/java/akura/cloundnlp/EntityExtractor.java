@@ -6,10 +6,19 @@ import akura.utility.APIConnection;
 import akura.cloundnlp.dtos.FinalEntityTagDto;
 import akura.cloundnlp.dtos.OntologyMapDto;
 import akura.cloundnlp.dtos.SyntaxDto;
+import akura.cloundnlp.backend.NlpBackend;
+import akura.cloundnlp.backend.NlpBackends;
+import akura.cloundnlp.output.EntityColumnWriter;
+import akura.pipeline.Pipeline;
+import akura.pipeline.Stage;
+import akura.utility.EngineConfiguration;
+import akura.utility.GsonProvider;
+import akura.utility.LogStage;
 import akura.utility.Logger;
+import akura.utility.Metrics;
+import akura.utility.NlpRequestExecutor;
 import com.google.cloud.language.v1beta2.*;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -20,16 +29,16 @@ import java.io.*;
 import java.io.FileReader;
 import java.io.IOException;
 
+import java.nio.file.Paths;
 import java.security.GeneralSecurityException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
  * A snippet for Google Cloud Speech API showing how to analyze text message sentiment.
  */
 public class EntityExtractor {
-    private static OntologyMapDto ontologyMapDto;
-    private static LanguageServiceClient languageServiceClient;
 
     /**
      *
@@ -41,25 +50,54 @@ public class EntityExtractor {
      * To identify the review category of a given review
      *
      * @param text
-     * @param languageServiceClient
+     * @param nlpBackend
      * @return
      * @throws IOException
      * @throws GeneralSecurityException
      */
-    public Map<String, Float> identifyReviewCategory(String text, LanguageServiceClient languageServiceClient) throws IOException, GeneralSecurityException {
-        Document doc = Document.newBuilder().setContent(text).setType(Document.Type.PLAIN_TEXT).build();
-        ClassifyTextRequest request = ClassifyTextRequest.newBuilder()
-                .setDocument(doc)
-                .build();
-        ClassifyTextResponse response = languageServiceClient.classifyText(request);
+    public Map<String, Float> identifyReviewCategory(String text, NlpBackend nlpBackend) throws IOException, GeneralSecurityException {
+        long startNanos = System.nanoTime();
+        Map<String, Float> categoryMap = buildCategoryMap(nlpBackend.classifyText(toDocument(text)).getCategoriesList());
+        Metrics.recordStage("identifyReviewCategory", startNanos);
+        return categoryMap;
+    }
+
+    /**
+     * identify the review category on the nlp request executor
+     *
+     * @param text
+     * @param nlpBackend
+     * @return
+     */
+    public CompletableFuture<Map<String, Float>> identifyReviewCategoryAsync(String text, NlpBackend nlpBackend) {
+        long startNanos = System.nanoTime();
+        Document doc = toDocument(text);
+        CompletableFuture<ClassifyTextResponse> classification = NlpRequestExecutor.supplyAsync(() -> nlpBackend.classifyText(doc));
+        return NlpRequestExecutor.cancelWith(classification.thenApply(response -> {
+            Map<String, Float> categoryMap = buildCategoryMap(response.getCategoriesList());
+            Metrics.recordStage("identifyReviewCategory", startNanos);
+            return categoryMap;
+        }), classification);
+    }
+
+    private Document toDocument(String text) {
+        return Document.newBuilder().setContent(text).setType(Document.Type.PLAIN_TEXT).build();
+    }
+
+    /**
+     * build the review category map from the classification categories of a document
+     *
+     * @param categories
+     * @return
+     */
+    public Map<String, Float> buildCategoryMap(List<ClassificationCategory> categories) {
         Map<String, Float> categoryMap = new LinkedHashMap<>();
-        for (ClassificationCategory category : response.getCategoriesList()) {
+        for (ClassificationCategory category : categories) {
             categoryMap.put(category.getName().split("/")[1], category.getConfidence());
             break;
         }
 
-        Logger.Log("----------------Category Map----------------");
-        Logger.Log(new GsonBuilder().setPrettyPrinting().create().toJson(categoryMap));
+        Logger.debugJson(LogStage.CATEGORY, "Category Map", categoryMap);
 
         return categoryMap;
     }
@@ -67,15 +105,23 @@ public class EntityExtractor {
     /**
      * analyse a given document(paragraph) and identify possible entities from google nlp according to their role play inside the paragraph and output and entity map with entity, category, sentiment and sailience
      *
-     * @param languageApi
+     * @param nlpBackend
      * @param doc
      * @return
      */
-    public Map<String, List<String>> analyseEntity(LanguageServiceClient languageApi, Document doc) {
+    public Map<String, List<String>> analyseEntity(NlpBackend nlpBackend, Document doc) {
+        return buildEntityMap(nlpBackend.analyzeEntitySentiment(doc).getEntitiesList());
+    }
+
+    /**
+     * build the entity map with entity, category, sentiment and salience from the entities of a document
+     *
+     * @param entities
+     * @return
+     */
+    public Map<String, List<String>> buildEntityMap(List<Entity> entities) {
         Map<String, List<String>> entityList = new HashMap<>();
-        AnalyzeEntitySentimentRequest request = AnalyzeEntitySentimentRequest.newBuilder().setDocument(doc).setEncodingType(EncodingType.UTF16).build();
-        AnalyzeEntitySentimentResponse response = languageApi.analyzeEntitySentiment(request);
-        for (Entity entity : response.getEntitiesList()) {
+        for (Entity entity : entities) {
             List<String> detailList = new LinkedList<>();
             detailList.add(entity.getName());
             detailList.add(entity.getType().name());
@@ -83,8 +129,7 @@ public class EntityExtractor {
             detailList.add(String.valueOf(entity.getSalience()));
             entityList.put(UUID.randomUUID().toString(), detailList);
         }
-        Logger.Log("----------------Google NLP Entity List----------------");
-        Logger.Log(new GsonBuilder().setPrettyPrinting().create().toJson(entityList));
+        Logger.debugJson(LogStage.ENTITY, "Google NLP Entity List", entityList);
         return entityList;
     }
 
@@ -92,20 +137,66 @@ public class EntityExtractor {
      * analyse a given document(paragraph) and output syntax tag map and final entity tag map
      *
      * @param text
-     * @param languageServiceClient
+     * @param nlpBackend
      * @return
      * @throws IOException
      * @throws GeneralSecurityException
      */
-    public Map<String, Map<Integer, List<String>>> analyseSyntax(String text, LanguageServiceClient languageServiceClient) throws IOException, GeneralSecurityException {
+    public Map<String, Map<Integer, List<String>>> analyseSyntax(String text, NlpBackend nlpBackend) throws IOException, GeneralSecurityException {
+        long startNanos = System.nanoTime();
+        Document doc = toDocument(text);
+        Map<String, List<String>> entitiesFound = analyseEntity(nlpBackend, doc);
+        AnalyzeSyntaxResponse response = nlpBackend.analyzeSyntax(doc);
+        Map<String, Map<Integer, List<String>>> outputMap = buildSyntaxOutputMap(response.getTokensList(), entitiesFound);
+        Metrics.recordStage("analyseSyntax", startNanos);
+        return outputMap;
+    }
+
+    /**
+     * analyse the syntax on the nlp request executor, with the entity and syntax requests running concurrently
+     *
+     * @param text
+     * @param nlpBackend
+     * @return
+     */
+    public CompletableFuture<Map<String, Map<Integer, List<String>>>> analyseSyntaxAsync(String text, NlpBackend nlpBackend) {
+        long startNanos = System.nanoTime();
+        Document doc = toDocument(text);
+        CompletableFuture<Map<String, List<String>>> entitiesFound = NlpRequestExecutor.supplyAsync(() -> analyseEntity(nlpBackend, doc));
+        CompletableFuture<AnalyzeSyntaxResponse> syntax = NlpRequestExecutor.supplyAsync(() -> nlpBackend.analyzeSyntax(doc));
+        return NlpRequestExecutor.cancelWith(syntax.thenCombine(entitiesFound, (response, entities) -> {
+            Map<String, Map<Integer, List<String>>> outputMap = buildSyntaxOutputMap(response.getTokensList(), entities);
+            Metrics.recordStage("analyseSyntax", startNanos);
+            return outputMap;
+        }), syntax, entitiesFound);
+    }
+
+    /**
+     * wait for the requests of a review stage, cancelling them when they exceed the time left of the review timeout
+     *
+     * @param reviewAnalysis
+     * @param requests
+     * @param <T>
+     * @return
+     * @throws IOException when a request failed or the requests timed out
+     */
+    private static <T> T awaitReviewRequests(ReviewAnalysis reviewAnalysis, CompletableFuture<T> requests) throws IOException {
+        NlpRequestExecutor.awaitAll(reviewAnalysis.getRemainingMillis(), requests);
+        return requests.join();
+    }
+
+    /**
+     * build the syntax tag map and final entity tag map from the tokens and the entities found in a document
+     *
+     * @param tokens
+     * @param entitiesFound
+     * @return
+     */
+    public Map<String, Map<Integer, List<String>>> buildSyntaxOutputMap(List<Token> tokens, Map<String, List<String>> entitiesFound) {
         Map<String, Map<Integer, List<String>>> outputMap = new LinkedHashMap<>();
-        Document doc = Document.newBuilder().setContent(text).setType(Document.Type.PLAIN_TEXT).build();
-        Map<String, List<String>> entitiesFound = analyseEntity(languageServiceClient, doc);
-        AnalyzeSyntaxRequest request = AnalyzeSyntaxRequest.newBuilder().setDocument(doc).setEncodingType(EncodingType.UTF16).build();
-        AnalyzeSyntaxResponse response = languageServiceClient.analyzeSyntax(request);
         Map<Integer, List<String>> syntaxTagMap = new LinkedHashMap<>();
         int counter = 0;
-        for (Token token : response.getTokensList()) {
+        for (Token token : tokens) {
             List<String> tokenTags = new LinkedList<>();
             tokenTags.add(token.getText().getContent());
             tokenTags.add(token.getPartOfSpeech().getTag().toString());
@@ -134,17 +225,44 @@ public class EntityExtractor {
             }
             finalEntityTaggedMap.put(++counter, temporaryEntityDetailList);
         }
-        Logger.Log("--------- Synatx Map ------------");
-        Logger.Log(syntaxTagMap.toString());
-
-        Logger.Log("--------- finalEntityTaggedMap ------------");
-        Logger.Log(finalEntityTaggedMap.toString());
+        Logger.debugJson(LogStage.SYNTAX, "Synatx Map", syntaxTagMap);
+        Logger.debugJson(LogStage.SYNTAX, "finalEntityTaggedMap", finalEntityTaggedMap);
 
         outputMap.put("syntaxTagMap", syntaxTagMap);
         outputMap.put("finalEntityTaggedMap", finalEntityTaggedMap);
         return outputMap;
     }
 
+    /**
+     * analyse a given review with a single annotate request which returns the categories, the entities with their sentiment
+     * and the syntax tokens, instead of separate classify, entity and syntax requests
+     *
+     * @param text
+     * @param nlpBackend
+     * @return
+     */
+    public AnnotateTextResponse annotateReview(String text, NlpBackend nlpBackend) {
+        long startNanos = System.nanoTime();
+        AnnotateTextResponse response = nlpBackend.annotateText(toDocument(text));
+        Metrics.recordStage("annotateReview", startNanos);
+        return response;
+    }
+
+    /**
+     * construct the ontology map of a review from a single annotate response
+     *
+     * @param review
+     * @param annotation
+     * @return
+     */
+    public OntologyMapDto constructJson(JSONObject review, AnnotateTextResponse annotation) {
+        return constructJson(
+                review,
+                buildCategoryMap(annotation.getCategoriesList()),
+                buildSyntaxOutputMap(annotation.getTokensList(), buildEntityMap(annotation.getEntitiesList()))
+        );
+    }
+
     /**
      * construct json using the dto list
      *
@@ -154,7 +272,8 @@ public class EntityExtractor {
      * @return
      */
     public OntologyMapDto constructJson(JSONObject review, Map<String, Float> categoryMap, Map<String, Map<Integer, List<String>>> outputMap) {
-        ontologyMapDto = new OntologyMapDto();
+        long startNanos = System.nanoTime();
+        OntologyMapDto ontologyMapDto = new OntologyMapDto();
         ontologyMapDto.setReviewId(review.get("review_id").toString());
         ontologyMapDto.setReview(review.get("reviewContent").toString());
         ontologyMapDto.setReviewRating(Float.parseFloat(review.get("rating").toString()));
@@ -198,6 +317,7 @@ public class EntityExtractor {
         SpecificationDto specificationDto = specificationExtractor.extractDomainsFromSentenceSyntax(ontologyMapDto.getFinalEntityTaggedList(), ontologyMapDto.getReview());
         ontologyMapDto.setSpecificationDto(specificationDto);
 
+        Metrics.recordStage("constructJson", startNanos);
         return ontologyMapDto;
     }
 
@@ -208,7 +328,7 @@ public class EntityExtractor {
      */
     public List<FinalEntityTagDto> prioritizeEntities(List<FinalEntityTagDto> finalEntityTagDtos) {
         Collections.sort(finalEntityTagDtos, (object1, object2) -> (int)(object1.getSalience()*10000-object2.getSalience()*10000));
-        System.out.println(new GsonBuilder().setPrettyPrinting().create().toJson(finalEntityTagDtos));
+        Logger.debugJson(LogStage.AGGREGATION, "Prioritized entity list", finalEntityTagDtos);
         return finalEntityTagDtos;
 //        return finalEntityTagDtos
 //                .stream()
@@ -228,53 +348,27 @@ public class EntityExtractor {
      * @return
      */
     public List<FinalEntityTagDto> constructAvgScores(List<FinalEntityTagDto> finalEntityTagDtos) {
-        List<FinalEntityTagDto> outputDtoList = new LinkedList<>();
-        Iterator<FinalEntityTagDto> iterator = finalEntityTagDtos.iterator();
-        while (iterator.hasNext()) {
-            FinalEntityTagDto finalEntityTagDto = iterator.next();
-            FinalEntityTagDto temporaryDto = new FinalEntityTagDto();
-            String entityName = finalEntityTagDto.getText();
-            String entityCategory = finalEntityTagDto.getCategory();
-            String nounCombination = finalEntityTagDto.getNounCombination();
-            String nounCombinationCategory = finalEntityTagDto.getNounCombinationCategory();
-            float sentiment = finalEntityTagDto.getSentiment();
-            float salience = finalEntityTagDto.getSalience();
-            iterator.remove();
-            int counter = 1;
-            while (iterator.hasNext()) {
-                FinalEntityTagDto finalEntityTagDto1 = iterator.next();
-                if (entityName.equalsIgnoreCase(finalEntityTagDto1.getText()) || (nounCombination.equalsIgnoreCase(finalEntityTagDto1.getNounCombination()) && !nounCombination.equals("") && !finalEntityTagDto1.getNounCombination().equals(""))) {
-                    counter++;
-                    sentiment = (sentiment + finalEntityTagDto1.getSentiment());
-                    salience = (salience + finalEntityTagDto1.getSalience());
-                    iterator.remove();
-                }
-            }
-
-            temporaryDto.setText(entityName);
-            temporaryDto.setCategory(entityCategory);
-            temporaryDto.setSentiment(sentiment / counter);
-            temporaryDto.setSalience(salience / counter);
-            temporaryDto.setNounCombination(nounCombination);
-            temporaryDto.setNounCombinationCategory(nounCombinationCategory);
-            outputDtoList.add(temporaryDto);
-            iterator = finalEntityTagDtos.iterator();
-        }
-        System.out.println(new GsonBuilder().setPrettyPrinting().create().toJson(outputDtoList));
+        List<FinalEntityTagDto> outputDtoList = new EntityScoreAggregator().addAll(finalEntityTagDtos).aggregate();
+        Logger.debugJson(LogStage.AGGREGATION, "Average entity scores", outputDtoList);
         return this.prioritizeEntities(outputDtoList);
     }
 
     /**
      * write output to a json document - output.json
+     * and append the entity tags to the binary column file
      *
      * @param ontologyMapDtos
      * @throws IOException
      */
     public void writeDocumentOutput(List<OntologyMapDto> ontologyMapDtos) throws IOException {
         try (Writer writer = new FileWriter("Output.json")) {
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            Gson gson = GsonProvider.pretty();
             gson.toJson(ontologyMapDtos, writer);
         }
+        try (EntityColumnWriter entityColumnWriter = new EntityColumnWriter(
+                Paths.get(EngineConfiguration.COLUMN_OUTPUT_FILE), EngineConfiguration.COLUMN_OUTPUT_BLOCK_ROWS)) {
+            entityColumnWriter.appendAll(ontologyMapDtos);
+        }
     }
 
     /**
@@ -290,14 +384,16 @@ public class EntityExtractor {
      * @return
      */
     public List<OntologyMapDto> extractEntityData(String text, String entity) {
+        NlpBackend nlpBackend = null;
         try {
-            languageServiceClient = APIConnection.provideLanguageServiceClient();
+            nlpBackend = NlpBackends.get();
             List<String> replacedText = new RelationshipExtractor().executeModifier(text, entity);
             text = "";
             for (String newStr : replacedText){
                 text += " "+newStr;
             }
-            System.out.println(text);
+            String modifiedText = text;
+            Logger.debug(LogStage.ENTITY_REPLACEMENT, () -> modifiedText);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -310,20 +406,79 @@ public class EntityExtractor {
         } catch (ParseException e) {
             e.printStackTrace();
         }
-        List<OntologyMapDto> ontologyMapDtos = new LinkedList<>();
+        Pipeline<ReviewAnalysis, OntologyMapDto> reviewPipeline = reviewPipeline(nlpBackend);
+        List<CompletableFuture<OntologyMapDto>> results = new ArrayList<>();
         for (Object object : array) {
             JSONObject jsonObject = (JSONObject) object;
             jsonObject.put("reviewContent", text);
             jsonObject.put("mainEntity", "IPhone 6S");
-            String sampleText = jsonObject.get("reviewContent").toString();
-            try {
-                ontologyMapDtos.add(constructJson(jsonObject, identifyReviewCategory(sampleText, languageServiceClient), analyseSyntax(sampleText, languageServiceClient)));
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GeneralSecurityException e) {
-                e.printStackTrace();
-            }
+            results.add(reviewPipeline.execute(new ReviewAnalysis(jsonObject)));
+        }
+        List<OntologyMapDto> ontologyMapDtos = new LinkedList<>();
+        for (CompletableFuture<OntologyMapDto> result : results) {
+            ontologyMapDtos.add(result.join());
         }
         return ontologyMapDtos;
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint - extracted entity data of a single review
+     *
+     * @param reviewId
+     * @param text
+     * @param rating
+     * @param entity   - main entity of the review, may be null.
+     * @return
+     * @throws IOException
+     */
+    public OntologyMapDto extractReviewData(String reviewId, String text, float rating, String entity) throws IOException {
+        NlpBackend nlpBackend = NlpBackends.get();
+        String reviewContent = text;
+        if (entity != null && !entity.isEmpty()) {
+            StringBuilder replacedText = new StringBuilder();
+            for (String newStr : new RelationshipExtractor().executeModifier(text, entity)) {
+                replacedText.append(" ").append(newStr);
+            }
+            reviewContent = replacedText.toString();
+        }
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("review_id", reviewId);
+        jsonObject.put("reviewContent", reviewContent);
+        jsonObject.put("rating", rating);
+        jsonObject.put("mainEntity", entity);
+        return reviewPipeline(nlpBackend).run(new ReviewAnalysis(jsonObject));
+    }
+
+    /**
+     * review pipeline: a single annotate request, or when annotate requests are disabled a classify stage forked with
+     * an entity and syntax stage, then the ontology map. The requests of a review share its timeout, and a routed backend
+     * gets the time left of it as its latency budget.
+     *
+     * @param nlpBackend
+     * @return
+     */
+    public Pipeline<ReviewAnalysis, OntologyMapDto> reviewPipeline(NlpBackend nlpBackend) {
+        Stage<ReviewAnalysis, ReviewAnalysis> annotateStage = Stage.remote("annotateReview", (ReviewAnalysis reviewAnalysis) -> {
+            AnnotateTextResponse annotation = annotateReview(reviewAnalysis.getReviewContent(), nlpBackend.withDeadline(reviewAnalysis.getDeadlineNanos()));
+            reviewAnalysis.setCategoryMap(buildCategoryMap(annotation.getCategoriesList()));
+            reviewAnalysis.setOutputMap(buildSyntaxOutputMap(annotation.getTokensList(), buildEntityMap(annotation.getEntitiesList())));
+            return reviewAnalysis;
+        });
+        Pipeline<ReviewAnalysis, OntologyMapDto> pipeline = Pipeline.of(annotateStage)
+                .then(Stage.of("constructJson", (ReviewAnalysis reviewAnalysis) ->
+                        constructJson(reviewAnalysis.getReview(), reviewAnalysis.getCategoryMap(), reviewAnalysis.getOutputMap())));
+        if (EngineConfiguration.ANNOTATE_REVIEWS) {
+            return pipeline;
+        }
+        Stage<ReviewAnalysis, Map<String, Float>> classifyStage = Stage.remote("classifyReview", (ReviewAnalysis reviewAnalysis) ->
+                awaitReviewRequests(reviewAnalysis, identifyReviewCategoryAsync(reviewAnalysis.getReviewContent(), nlpBackend)));
+        Stage<ReviewAnalysis, Map<String, Map<Integer, List<String>>>> syntaxStage = Stage.remote("analyseSyntax", (ReviewAnalysis reviewAnalysis) ->
+                awaitReviewRequests(reviewAnalysis, analyseSyntaxAsync(reviewAnalysis.getReviewContent(),
+                        nlpBackend.withDeadline(reviewAnalysis.getDeadlineNanos()))));
+        return pipeline.replace(annotateStage, Stage.fork(classifyStage, syntaxStage, (reviewAnalysis, categoryMap, outputMap) -> {
+            reviewAnalysis.setCategoryMap(categoryMap);
+            reviewAnalysis.setOutputMap(outputMap);
+            return reviewAnalysis;
+        }));
+    }
+}
@@ -0,0 +1,132 @@
+package akura.cloundnlp;
+
+import akura.cloundnlp.dtos.FinalEntityTagDto;
+
+import java.util.*;
+
+/**
+ * Aggregate duplicate entity tags into one tag with averaged sentiment and salience.
+ * Two tags are the same entity when their texts are equal ignoring case, or when both have a noun combination
+ * and the noun combinations are equal ignoring case. Groups are tracked with a union find, so matching is transitive
+ * and tags can be added incrementally, e.g. over all the reviews of a product, in linear time.
+ */
+public class EntityScoreAggregator {
+    private final List<FinalEntityTagDto> tags = new ArrayList<>();
+    private final Map<String, Integer> textIndex = new HashMap<>();
+    private final Map<String, Integer> nounCombinationIndex = new HashMap<>();
+    private int[] parent = new int[16];
+    private int[] groupSize = new int[16];
+    private int[] firstTag = new int[16];
+    private double[] sentimentSum = new double[16];
+    private double[] salienceSum = new double[16];
+
+    /**
+     * Add a single entity tag
+     *
+     * @param finalEntityTagDto
+     * @return
+     */
+    public EntityScoreAggregator add(FinalEntityTagDto finalEntityTagDto) {
+        int node = tags.size();
+        ensureCapacity(node + 1);
+        tags.add(finalEntityTagDto);
+        parent[node] = node;
+        groupSize[node] = 1;
+        firstTag[node] = node;
+        sentimentSum[node] = finalEntityTagDto.getSentiment();
+        salienceSum[node] = finalEntityTagDto.getSalience();
+
+        String text = normalize(finalEntityTagDto.getText());
+        Integer sameText = textIndex.putIfAbsent(text, node);
+        if (sameText != null) {
+            union(sameText, node);
+        }
+        String nounCombination = normalize(finalEntityTagDto.getNounCombination());
+        if (!nounCombination.isEmpty()) {
+            Integer sameNounCombination = nounCombinationIndex.putIfAbsent(nounCombination, node);
+            if (sameNounCombination != null) {
+                union(sameNounCombination, node);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Add a list of entity tags, e.g. the tags of one review
+     *
+     * @param finalEntityTagDtos
+     * @return
+     */
+    public EntityScoreAggregator addAll(Collection<FinalEntityTagDto> finalEntityTagDtos) {
+        finalEntityTagDtos.forEach(this::add);
+        return this;
+    }
+
+    /**
+     * One tag per entity group, in the order the groups first appeared. Text, category and noun combination are taken
+     * from the first tag of the group, sentiment and salience are the group averages.
+     *
+     * @return
+     */
+    public List<FinalEntityTagDto> aggregate() {
+        List<FinalEntityTagDto> outputDtoList = new LinkedList<>();
+        for (int node = 0; node < tags.size(); node++) {
+            int root = find(node);
+            if (firstTag[root] != node) {
+                continue;
+            }
+            FinalEntityTagDto first = tags.get(node);
+            FinalEntityTagDto temporaryDto = new FinalEntityTagDto();
+            temporaryDto.setText(first.getText());
+            temporaryDto.setCategory(first.getCategory());
+            temporaryDto.setSentiment((float) (sentimentSum[root] / groupSize[root]));
+            temporaryDto.setSalience((float) (salienceSum[root] / groupSize[root]));
+            temporaryDto.setNounCombination(first.getNounCombination());
+            temporaryDto.setNounCombinationCategory(first.getNounCombinationCategory());
+            outputDtoList.add(temporaryDto);
+        }
+        return outputDtoList;
+    }
+
+    private int find(int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private void union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot) {
+            return;
+        }
+        if (groupSize[firstRoot] < groupSize[secondRoot]) {
+            int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        parent[secondRoot] = firstRoot;
+        groupSize[firstRoot] += groupSize[secondRoot];
+        firstTag[firstRoot] = Math.min(firstTag[firstRoot], firstTag[secondRoot]);
+        sentimentSum[firstRoot] += sentimentSum[secondRoot];
+        salienceSum[firstRoot] += salienceSum[secondRoot];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= parent.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, parent.length * 2);
+        parent = Arrays.copyOf(parent, newCapacity);
+        groupSize = Arrays.copyOf(groupSize, newCapacity);
+        firstTag = Arrays.copyOf(firstTag, newCapacity);
+        sentimentSum = Arrays.copyOf(sentimentSum, newCapacity);
+        salienceSum = Arrays.copyOf(salienceSum, newCapacity);
+    }
+
+    private static String normalize(String value) {
+        return (value == null) ? "" : value.toLowerCase();
+    }
+}
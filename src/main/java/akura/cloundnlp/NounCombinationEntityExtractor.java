@@ -1,8 +1,9 @@
 package akura.cloundnlp;
 
 import akura.utility.APIConnection;
+import akura.utility.LogStage;
 import akura.utility.Logger;
-import com.google.gson.GsonBuilder;
+import akura.utility.Metrics;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -21,6 +22,7 @@ public class NounCombinationEntityExtractor {
      * @return
      */
     public static Map<String, String> mergeNouns(Map<Integer, List<String>> data) {
+        long startNanos = System.nanoTime();
         Map<String, String> entityTags = new LinkedHashMap<>();
         String requestString = "";
         int adjacentNounCount = 0;
@@ -43,8 +45,8 @@ public class NounCombinationEntityExtractor {
         }
 
 
-        Logger.Log("----------------Noun combination sequences----------------");
-        Logger.Log(new GsonBuilder().setPrettyPrinting().create().toJson(entityTags));
+        Logger.debugJson(LogStage.NOUN_COMBINATION, "Noun combination sequences", entityTags);
+        Metrics.recordStage("mergeNouns", startNanos);
         return entityTags;
     }
 }
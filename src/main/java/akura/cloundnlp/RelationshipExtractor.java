@@ -1,15 +1,21 @@
 package akura.cloundnlp;
 
+import akura.cloundnlp.backend.NlpBackend;
+import akura.cloundnlp.backend.NlpBackends;
 import akura.cloundnlp.dtos.SentenceDto;
 import akura.cloundnlp.dtos.SentenceWordDto;
-import akura.utility.APIConnection;
+import akura.pipeline.Pipeline;
+import akura.pipeline.Stage;
+import akura.utility.EngineConfiguration;
+import akura.utility.LogStage;
 import akura.utility.Logger;
+import akura.utility.Metrics;
+import akura.utility.NlpRequestExecutor;
 import com.google.cloud.language.v1beta2.Document;
-import com.google.cloud.language.v1beta2.LanguageServiceClient;
-import com.google.gson.GsonBuilder;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,14 +26,15 @@ import java.util.regex.Pattern;
 public class RelationshipExtractor {
     private final static String REGEX = "[^.!?\\s][^.!?]*(?:[.!?](?!['\"]?\\s|$)[^.!?]*)*[.!?]?['\"]?(?=\\s|$)";
     private EntityExtractor entityExtractor = new EntityExtractor();
-    private LanguageServiceClient languageServiceClient;
+    private SentenceEntityBatcher sentenceEntityBatcher = new SentenceEntityBatcher();
+    private NlpBackend nlpBackend;
 
     /**
      * Constructor
      */
     public RelationshipExtractor() {
         try {
-            languageServiceClient = APIConnection.provideLanguageServiceClient();
+            nlpBackend = NlpBackends.get();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -45,13 +52,14 @@ public class RelationshipExtractor {
      * @return
      */
     public static List<String> sentenceTokenize(String paragraph) {
+        long startNanos = System.nanoTime();
         List<String> sentenceList = new ArrayList<>();
         Matcher reMatcher = Pattern.compile(REGEX, Pattern.MULTILINE | Pattern.COMMENTS).matcher(paragraph);
         while (reMatcher.find()) {
             sentenceList.add(reMatcher.group());
         }
-        System.out.println("----------------Sentence wise tokenization----------------");
-        System.out.println(new GsonBuilder().setPrettyPrinting().create().toJson(sentenceList));
+        Logger.debugJson(LogStage.TOKENIZE, "Sentence wise tokenization", sentenceList);
+        Metrics.recordStage("sentenceTokenize", startNanos);
         return sentenceList;
     }
 
@@ -62,12 +70,13 @@ public class RelationshipExtractor {
      * @return
      */
     public List<SentenceDto> sentenceSyntaxAnalysis(List<String> sentenceList) throws IOException {
+        long startNanos = System.nanoTime();
         List<SentenceDto> analyzedSentenceDtoList = new LinkedList<>();
-        sentenceList.forEach(sentence -> {
+        List<Map<String, List<String>>> sentenceEntityAnalysisMaps = analyseSentenceEntities(sentenceList);
+        int sentenceIndex = 0;
+        for (String sentence : sentenceList) {
             List<SentenceWordDto> analyzedSentenceWordDtoList = new LinkedList<>();
-            Map<String, List<String>> sentenceEntityAnalysisMap = null;
-            Document doc = Document.newBuilder().setContent(sentence).setType(Document.Type.PLAIN_TEXT).build();
-            sentenceEntityAnalysisMap = entityExtractor.analyseEntity(languageServiceClient, doc);
+            Map<String, List<String>> sentenceEntityAnalysisMap = sentenceEntityAnalysisMaps.get(sentenceIndex++);
             SentenceDto sentenceDto = new SentenceDto();
             sentenceDto.setSentence(sentence);
             sentenceDto.setSentenceWordDtos(createDto(sentenceEntityAnalysisMap));
@@ -79,12 +88,88 @@ public class RelationshipExtractor {
             }
             sentenceDto.setTotalSalience((float) totalSalience);
             analyzedSentenceDtoList.add(sentenceDto);
-        });
-        System.out.println("----------------Analyzed sentence list----------------");
-        System.out.println(new GsonBuilder().setPrettyPrinting().create().toJson(analyzedSentenceDtoList));
+        }
+        Logger.debugJson(LogStage.SENTENCE_ANALYSIS, "Analyzed sentence list", analyzedSentenceDtoList);
+        Metrics.recordStage("sentenceSyntaxAnalysis", startNanos);
         return analyzedSentenceDtoList;
     }
 
+    /**
+     * analyse the entities of each sentence, with a single batched request unless sentence batching is disabled
+     *
+     * @param sentenceList
+     * @return entity map per sentence in sentence order
+     */
+    private List<Map<String, List<String>>> analyseSentenceEntities(List<String> sentenceList) {
+        if (EngineConfiguration.SENTENCE_ENTITY_BATCHING) {
+            return sentenceEntityBatcher.analyseSentences(nlpBackend, sentenceList);
+        }
+        return NlpRequestExecutor.mapInOrder(new ArrayList<>(sentenceList), sentence -> {
+            Document doc = Document.newBuilder().setContent(sentence).setType(Document.Type.PLAIN_TEXT).build();
+            return entityExtractor.analyseEntity(nlpBackend, doc);
+        });
+    }
+
+    /**
+     * When sentence batching is disabled, start the entity analysis of every previous sentence and first "and it" sub sentence
+     * the IT context replacement will need, so they run concurrently instead of one after the other.
+     * Only texts which are not rewritten before they are used are prefetched.
+     *
+     * @param sentenceList
+     * @return pending analysis keyed by the analysed text
+     */
+    private Map<String, Future<List<SentenceWordDto>>> prefetchItContextWords(List<SentenceDto> sentenceList) {
+        Map<String, Future<List<SentenceWordDto>>> prefetchedWords = new HashMap<>();
+        if (EngineConfiguration.SENTENCE_ENTITY_BATCHING) {
+            return prefetchedWords;
+        }
+        List<String> sentences = new ArrayList<>(sentenceList.size());
+        sentenceList.forEach(sentenceDto -> sentences.add(sentenceDto.getSentence()));
+        for (int i = 0; i < sentences.size(); i++) {
+            if (startsWithIt(i, sentences.get(i))) {
+                continue;
+            }
+            String sentence = sentences.get(i);
+            if (sentence.contains("and it")) {
+                prefetchWords(sentence.split("and it")[0], prefetchedWords);
+            } else if (i + 1 < sentences.size() && startsWithIt(i + 1, sentences.get(i + 1))) {
+                prefetchWords(sentence, prefetchedWords);
+            }
+        }
+        return prefetchedWords;
+    }
+
+    private void prefetchWords(String text, Map<String, Future<List<SentenceWordDto>>> prefetchedWords) {
+        if (!prefetchedWords.containsKey(text)) {
+            Document doc = Document.newBuilder().setContent(text).setType(Document.Type.PLAIN_TEXT).build();
+            prefetchedWords.put(text, NlpRequestExecutor.submit(() -> createDto(entityExtractor.analyseEntity(nlpBackend, doc))));
+        }
+    }
+
+    private boolean startsWithIt(int sentenceCount, String sentence) {
+        return sentenceCount > 0 && (sentence.startsWith("It") || sentence.startsWith("it"));
+    }
+
+    /**
+     * entity words of a sentence or sub sentence. When sentence batching is enabled the words already analysed
+     * for the enclosing sentence are reused, otherwise the text is analysed again.
+     *
+     * @param text
+     * @param analysedWords
+     * @param prefetchedWords
+     * @return
+     */
+    private List<SentenceWordDto> resolveSentenceWords(String text, List<SentenceWordDto> analysedWords, Map<String, Future<List<SentenceWordDto>>> prefetchedWords) {
+        if (EngineConfiguration.SENTENCE_ENTITY_BATCHING && analysedWords != null) {
+            return analysedWords;
+        }
+        if (prefetchedWords.containsKey(text)) {
+            return NlpRequestExecutor.await(prefetchedWords.get(text));
+        }
+        Document doc = Document.newBuilder().setContent(text).setType(Document.Type.PLAIN_TEXT).build();
+        return createDto(entityExtractor.analyseEntity(nlpBackend, doc));
+    }
+
     /**
      * replace entities in a sentence where the phone and this phone is located
      *
@@ -93,6 +178,7 @@ public class RelationshipExtractor {
      * @return
      */
     public List<String> replaceEntityInSentences(String entity, List<String> entityList) {
+        long startNanos = System.nanoTime();
         List<String> replacedSentenceList = new LinkedList<>();
         entityList.forEach(sentence -> {
             replacedSentenceList.add(
@@ -104,8 +190,8 @@ public class RelationshipExtractor {
         });
 
 
-        Logger.Log("----------------Entity replaced sentence list(the phone, this phone, this device)----------------");
-        Logger.Log(new GsonBuilder().setPrettyPrinting().create().toJson(replacedSentenceList));
+        Logger.debugJson(LogStage.ENTITY_REPLACEMENT, "Entity replaced sentence list(the phone, this phone, this device)", replacedSentenceList);
+        Metrics.recordStage("replaceEntityInSentences", startNanos);
         return replacedSentenceList;
     }
 
@@ -116,59 +202,40 @@ public class RelationshipExtractor {
      * @return
      */
     public List<String> replaceEntityInSentenceByITContext(List<SentenceDto> sentenceList) {
+        long startNanos = System.nanoTime();
         List<String> replacedSentenceList = new LinkedList<>();
+        Map<String, Future<List<SentenceWordDto>>> prefetchedWords = prefetchItContextWords(sentenceList);
         int sentenceCount = 0;
         for (SentenceDto sentence : sentenceList) {
-            if (sentenceCount > 0 && (sentence.getSentence().startsWith("It") || (sentence.getSentence().startsWith("it")))) {
+            if (startsWithIt(sentenceCount, sentence.getSentence())) {
                 String prevSentence = sentenceList.get(sentenceCount - 1).getSentence();
-                Document doc = Document.newBuilder().setContent(prevSentence).setType(Document.Type.PLAIN_TEXT).build();
-                Map<String, List<String>> prevSentenceEntityAnalysisMap = entityExtractor.analyseEntity(languageServiceClient, doc);
                 SentenceDto prevSentenceDto = new SentenceDto();
                 prevSentenceDto.setSentence(prevSentence);
                 prevSentenceDto.setTotalSalience(0f);
-                prevSentenceDto.setSentenceWordDtos(createDto(prevSentenceEntityAnalysisMap));
-                List<Float> salience = new LinkedList<>();
-                prevSentenceDto.getSentenceWordDtos().forEach(words -> {
-                    if (prevSentence.contains(words.getText())) {
-                        salience.add(words.getSalience());
-                    }
-                });
-                Collections.sort(salience, Collections.reverseOrder());
-                SentenceWordDto eligibleEntity = prevSentenceDto.getSentenceWordDtos()
-                        .stream()
-                        .filter(words -> (salience.size() > 0 && words.getSalience() == salience.get(0)))
-                        .findFirst().orElse(null);
-                String x = sentence.getSentence().replaceAll("It", eligibleEntity.getText());
-                sentence.setSentence(x);
+                prevSentenceDto.setSentenceWordDtos(resolveSentenceWords(prevSentence, sentenceList.get(sentenceCount - 1).getSentenceWordDtos(), prefetchedWords));
+                SentenceWordDto eligibleEntity = mostSalientWord(prevSentence, prevSentenceDto.getSentenceWordDtos());
+                if (eligibleEntity != null) {
+                    String x = sentence.getSentence().replaceAll("It", eligibleEntity.getText());
+                    sentence.setSentence(x);
+                }
             }
             String newSentence = "";
             if (sentence.getSentence().contains("and it")) {
                 String[] splittedArray = sentence.getSentence().split("and it");
                 int counter = 0;
                 for (String subSentence : splittedArray) {
-                    Map<String, List<String>> sentenceEntityAnalysisMap = null;
-                    Document doc = Document.newBuilder().setContent(subSentence).setType(Document.Type.PLAIN_TEXT).build();
-                    sentenceEntityAnalysisMap = entityExtractor.analyseEntity(languageServiceClient, doc);
                     SentenceDto subSentenceDto = new SentenceDto();
                     subSentenceDto.setSentence(subSentence);
                     subSentenceDto.setTotalSalience(0f);
-                    subSentenceDto.setSentenceWordDtos(createDto(sentenceEntityAnalysisMap));
-                    List<Float> salience = new LinkedList<>();
-                    subSentenceDto.getSentenceWordDtos().forEach(words -> {
-                        if (subSentence.contains(words.getText())) {
-                            salience.add(words.getSalience());
-                        }
-                    });
-                    Collections.sort(salience, Collections.reverseOrder());
-                    SentenceWordDto eligibleEntity = subSentenceDto.getSentenceWordDtos()
-                            .stream()
-                            .filter(words -> (salience.size() > 0 && words.getSalience() == salience.get(0)))
-                            .findFirst().orElse(null);
+                    subSentenceDto.setSentenceWordDtos(resolveSentenceWords(subSentence, sentence.getSentenceWordDtos(), prefetchedWords));
+                    SentenceWordDto eligibleEntity = mostSalientWord(subSentence, subSentenceDto.getSentenceWordDtos());
                     String subSentenceString = "";
                     if ((splittedArray.length - 1) != counter) {
                         subSentenceString = subSentence.concat("and ");
                         newSentence = newSentence.concat(subSentenceString);
-                        splittedArray[++counter] = eligibleEntity.getText().concat(splittedArray[counter]);
+                        // without an entity in this clause "it" is kept
+                        String replacement = (eligibleEntity != null) ? eligibleEntity.getText() : "it";
+                        splittedArray[++counter] = replacement.concat(splittedArray[counter]);
                     } else {
                         subSentenceString = subSentence;
                         newSentence = newSentence.concat(subSentenceString);
@@ -182,11 +249,29 @@ public class RelationshipExtractor {
             sentenceCount++;
         }
 
-        Logger.Log("----------------Entity replacement by IT context----------------");
-        Logger.Log(new GsonBuilder().setPrettyPrinting().create().toJson(replacedSentenceList));
+        Logger.debugJson(LogStage.ENTITY_REPLACEMENT, "Entity replacement by IT context", replacedSentenceList);
+        Metrics.recordStage("replaceEntityInSentenceByITContext", startNanos);
         return replacedSentenceList;
     }
 
+    /**
+     * Most salient entity word which occurs in the text. Words analysed for an enclosing sentence may not occur
+     * in a sub sentence, so only words found in the text are eligible.
+     *
+     * @param text
+     * @param words
+     * @return null when no word occurs in the text
+     */
+    private static SentenceWordDto mostSalientWord(String text, List<SentenceWordDto> words) {
+        SentenceWordDto eligibleEntity = null;
+        for (SentenceWordDto word : words) {
+            if (text.contains(word.getText()) && (eligibleEntity == null || word.getSalience() > eligibleEntity.getSalience())) {
+                eligibleEntity = word;
+            }
+        }
+        return eligibleEntity;
+    }
+
     /**
      * Generate dtos' by given map
      * @param map
@@ -202,8 +287,7 @@ public class RelationshipExtractor {
             sentenceWordDtos.add(prevSentenceWordDto);
         });
 
-        Logger.Log("----------------Sentence list with word by word details----------------");
-        Logger.Log(new GsonBuilder().setPrettyPrinting().create().toJson(sentenceWordDtos));
+        Logger.debugJson(LogStage.SENTENCE_ANALYSIS, "Sentence list with word by word details", sentenceWordDtos);
 
         return sentenceWordDtos;
     }
@@ -215,17 +299,23 @@ public class RelationshipExtractor {
      * @return
      */
     public List<String> executeModifier(String text, String entity) throws IOException {
-        try {
-            return replaceEntityInSentenceByITContext(
-                    sentenceSyntaxAnalysis(
-                            replaceEntityInSentences(
-                                    entity,
-                                    sentenceTokenize(text))
-                    )
-            );
-        } catch (IOException e) {
-            throw new IOException(e.getMessage());
-        }
+        return modifierPipeline(entity).run(text);
+    }
+
+    /**
+     * sentence modifier pipeline: tokenize, replace entity phrases, analyse sentences and replace "it" by context.
+     * Requests without an entity skip the entity phrase replacement.
+     * @param entity
+     * @return
+     */
+    public Pipeline<String, List<String>> modifierPipeline(String entity) {
+        Stage<List<String>, List<String>> entityReplacement =
+                Stage.of("replaceEntityInSentences", (List<String> sentenceList) -> replaceEntityInSentences(entity, sentenceList));
+        Pipeline<String, List<String>> pipeline = Pipeline.of(Stage.of("sentenceTokenize", RelationshipExtractor::sentenceTokenize))
+                .then(entityReplacement)
+                .then(Stage.remote("sentenceSyntaxAnalysis", this::sentenceSyntaxAnalysis))
+                .then(Stage.remote("replaceEntityInSentenceByITContext", this::replaceEntityInSentenceByITContext));
+        return (entity == null || entity.isEmpty()) ? pipeline.without(entityReplacement) : pipeline;
     }
 
 }
\ No newline at end of file
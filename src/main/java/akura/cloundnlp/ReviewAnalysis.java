@@ -0,0 +1,61 @@
+package akura.cloundnlp;
+
+import akura.utility.EngineConfiguration;
+import org.json.simple.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Review flowing through the review pipeline, with the results of the analysis stages.
+ * The review has {@link EngineConfiguration#NLP_REVIEW_TIMEOUT_MILLIS} from its creation for its NLP requests.
+ */
+public class ReviewAnalysis {
+    private final JSONObject review;
+    private final long deadlineNanos;
+    private Map<String, Float> categoryMap;
+    private Map<String, Map<Integer, List<String>>> outputMap;
+
+    public ReviewAnalysis(JSONObject review) {
+        this.review = review;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(EngineConfiguration.NLP_REVIEW_TIMEOUT_MILLIS);
+    }
+
+    public JSONObject getReview() {
+        return review;
+    }
+
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * Time left of the review timeout
+     *
+     * @return
+     */
+    public long getRemainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    public String getReviewContent() {
+        return review.get("reviewContent").toString();
+    }
+
+    public Map<String, Float> getCategoryMap() {
+        return categoryMap;
+    }
+
+    public void setCategoryMap(Map<String, Float> categoryMap) {
+        this.categoryMap = categoryMap;
+    }
+
+    public Map<String, Map<Integer, List<String>>> getOutputMap() {
+        return outputMap;
+    }
+
+    public void setOutputMap(Map<String, Map<Integer, List<String>>> outputMap) {
+        this.outputMap = outputMap;
+    }
+}
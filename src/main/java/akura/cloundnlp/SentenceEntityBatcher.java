@@ -0,0 +1,96 @@
+package akura.cloundnlp;
+
+import akura.cloundnlp.backend.NlpBackend;
+import akura.utility.LogStage;
+import akura.utility.Logger;
+import com.google.cloud.language.v1beta2.*;
+
+import java.util.*;
+
+/**
+ * Analyse the entities of a list of sentences with a single request.
+ * The sentences are joined into one paragraph which is analysed once, then the entity mentions are sliced back
+ * onto each sentence using their character offsets.
+ */
+public class SentenceEntityBatcher {
+    private final static String SEPARATOR = " ";
+
+    /**
+     * analyse the given sentences in one request and output an entity map per sentence in the same order,
+     * with entity, category, sentiment and salience like {@link EntityExtractor#analyseEntity}
+     *
+     * @param nlpBackend
+     * @param sentenceList
+     * @return
+     */
+    public List<Map<String, List<String>>> analyseSentences(NlpBackend nlpBackend, List<String> sentenceList) {
+        int[] beginOffsets = new int[sentenceList.size()];
+        int[] endOffsets = new int[sentenceList.size()];
+        StringBuilder paragraph = new StringBuilder();
+        for (int i = 0; i < sentenceList.size(); i++) {
+            if (i > 0) {
+                paragraph.append(SEPARATOR);
+            }
+            beginOffsets[i] = paragraph.length();
+            paragraph.append(sentenceList.get(i));
+            endOffsets[i] = paragraph.length();
+        }
+
+        List<Map<String, List<String>>> sentenceEntityMaps = new ArrayList<>(sentenceList.size());
+        for (int i = 0; i < sentenceList.size(); i++) {
+            sentenceEntityMaps.add(new HashMap<>());
+        }
+        if (paragraph.length() == 0) {
+            return sentenceEntityMaps;
+        }
+
+        //UTF16 offsets are java string indexes
+        Document doc = Document.newBuilder().setContent(paragraph.toString()).setType(Document.Type.PLAIN_TEXT).build();
+        AnalyzeEntitySentimentResponse response = nlpBackend.analyzeEntitySentiment(doc);
+
+        for (Entity entity : response.getEntitiesList()) {
+            Map<Integer, String> mentionText = new LinkedHashMap<>();
+            Map<Integer, Float> mentionSentiment = new HashMap<>();
+            Map<Integer, Integer> mentionCount = new HashMap<>();
+            for (EntityMention mention : entity.getMentionsList()) {
+                int sentenceIndex = findSentence(mention.getText().getBeginOffset(), beginOffsets, endOffsets);
+                if (sentenceIndex < 0) {
+                    continue;
+                }
+                mentionText.putIfAbsent(sentenceIndex, mention.getText().getContent());
+                mentionSentiment.merge(sentenceIndex, mention.getSentiment().getScore(), Float::sum);
+                mentionCount.merge(sentenceIndex, 1, Integer::sum);
+            }
+            for (Map.Entry<Integer, String> mention : mentionText.entrySet()) {
+                int sentenceIndex = mention.getKey();
+                List<String> detailList = new LinkedList<>();
+                detailList.add(mention.getValue());
+                detailList.add(entity.getType().name());
+                detailList.add(String.valueOf(mentionSentiment.get(sentenceIndex) / mentionCount.get(sentenceIndex)));
+                detailList.add(String.valueOf(entity.getSalience()));
+                sentenceEntityMaps.get(sentenceIndex).put(UUID.randomUUID().toString(), detailList);
+            }
+        }
+        Logger.debugJson(LogStage.SENTENCE_ANALYSIS, "Google NLP Sentence Entity Lists", sentenceEntityMaps);
+        return sentenceEntityMaps;
+    }
+
+    /**
+     * find the sentence which contains the given paragraph offset
+     *
+     * @param offset
+     * @param beginOffsets
+     * @param endOffsets
+     * @return sentence index or -1 when the offset falls on a separator
+     */
+    private int findSentence(int offset, int[] beginOffsets, int[] endOffsets) {
+        int index = Arrays.binarySearch(beginOffsets, offset);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        if (index < 0 || offset >= endOffsets[index]) {
+            return -1;
+        }
+        return index;
+    }
+}
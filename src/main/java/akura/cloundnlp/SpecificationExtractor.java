@@ -4,15 +4,9 @@ import akura.cloundnlp.dtos.FinalEntityTagDto;
 import akura.cloundnlp.dtos.MobileDataSet;
 import akura.cloundnlp.dtos.SpecRelationshipDto;
 import akura.cloundnlp.dtos.SpecificationDto;
+import akura.utility.LogStage;
 import akura.utility.Logger;
-import com.google.gson.GsonBuilder;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
-
-import java.io.FileReader;
-import java.io.IOException;
+
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -80,9 +74,8 @@ public class SpecificationExtractor {
 //        List<SpecRelationshipDto> specRelationshipDtoList = getSpecificationRelationshipList(review, finalEntityTagDtos, featureMap);
 
         specificationDto.setSpecRelationshipDtoList(specRelationshipDtoList);
-        System.out.println(new GsonBuilder().setPrettyPrinting().create().toJson(specRelationshipDtoList));
-        Logger.Log("----------------Feature understanding----------------");
-        Logger.Log(new GsonBuilder().setPrettyPrinting().create().toJson(specificationDto));
+        Logger.debugJson(LogStage.SPECIFICATION, "Specification relationships", specRelationshipDtoList);
+        Logger.debugJson(LogStage.SPECIFICATION, "Feature understanding", specificationDto);
         return specificationDto;
     }
 
@@ -141,7 +134,7 @@ public class SpecificationExtractor {
     //get entities and match with the phone dataset inside the resources folder and get its mapped feature set in addition to the original feature set extracted from the nlp processes
     public List<FinalEntityTagDto> findMainEntityAndRelativeEntities(List<FinalEntityTagDto> finalEntityTagDtoList){
         List<FinalEntityTagDto> tmpFinalEntityTagDtoList = new LinkedList<>();
-        List<MobileDataSet> mobileDataSetList = this.getPhoneDataList();
+        DeviceCatalog deviceCatalog = DeviceCatalog.getInstance();
 
         for (FinalEntityTagDto finalEntityTagDto: finalEntityTagDtoList){
             if (finalEntityTagDto.getCategory().equalsIgnoreCase("CONSUMER_GOOD")
@@ -150,66 +143,15 @@ public class SpecificationExtractor {
                     || finalEntityTagDto.getNounCombinationCategory().equalsIgnoreCase("device")
                     || finalEntityTagDto.getNounCombinationCategory().equalsIgnoreCase("phone")){
 
-                for (MobileDataSet mobileDataSet: mobileDataSetList){
-                    if (mobileDataSet.getName().toLowerCase().toString().contains(finalEntityTagDto.getText().toLowerCase())){
-                        System.out.println(mobileDataSet.getName().toString());
-                        tmpFinalEntityTagDtoList.add(finalEntityTagDto);
-                        break;
-                    }
+                MobileDataSet mobileDataSet = deviceCatalog.findByNameContaining(finalEntityTagDto.getText());
+                if (mobileDataSet != null){
+                    Logger.debug(LogStage.SPECIFICATION, mobileDataSet::getName);
+                    tmpFinalEntityTagDtoList.add(finalEntityTagDto);
                 }
             }
         }
-        System.out.println("\ntemporary final entity tag dto list");
-        System.out.println(new GsonBuilder().setPrettyPrinting().create().toJson(tmpFinalEntityTagDtoList));
-        System.out.println();
+        Logger.debugJson(LogStage.SPECIFICATION, "temporary final entity tag dto list", tmpFinalEntityTagDtoList);
 
         return tmpFinalEntityTagDtoList;
     }
-
-    private List<MobileDataSet> getPhoneDataList(){
-        JSONParser jsonParser = new JSONParser();
-        List<MobileDataSet> mobileDataSetList = new LinkedList<>();
-        try {
-            JSONArray jsonArray = (JSONArray) jsonParser.parse(new FileReader("I:\\processing-engine\\src\\main\\java\\akura\\cloundnlp\\sample_resources\\phone_dataset.json"));
-
-            for (Object object: jsonArray){
-                JSONObject jsonObject = (JSONObject) object;
-                MobileDataSet mobileDataSet = new MobileDataSet();
-                jsonObject.forEach((key, value) -> {
-
-                    switch (key.toString()){
-                        case "name": mobileDataSet.setName(value.toString());
-                            break;
-                        case "releaseYear": mobileDataSet.setReleaseYear(value.toString());
-                            break;
-                        case "volume_mm_3": mobileDataSet.setVolume_mm_3(value.toString());
-                            break;
-                        case "weight_g": mobileDataSet.setWeight_g(value.toString());
-                            break;
-                        case "screen_size_in": mobileDataSet.setScreen_size_in(value.toString());
-                            break;
-                        case "total_resolution": mobileDataSet.setTotal_resolution(value.toString());
-                            break;
-                        case "OSType": mobileDataSet.setOSType(value.toString());
-                            break;
-                        case "number_of_cores": mobileDataSet.setNumber_of_cores(value.toString());
-                            break;
-                        case "core_clock_rate_gHz": mobileDataSet.setCore_clock_rate_gHz(value.toString());
-                            break;
-                        case "ram": mobileDataSet.setRam(value.toString());
-                            break;
-                        case "primary_camera_MP": mobileDataSet.setPrimary_camera_MP(value.toString());
-                            break;
-                        default:
-                    }
-                });
-                mobileDataSetList.add(mobileDataSet);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        return mobileDataSetList;
-    }
 }
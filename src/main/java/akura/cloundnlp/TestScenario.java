@@ -1,20 +1,18 @@
 package akura.cloundnlp;
 
+import akura.cloundnlp.backend.NlpBackend;
+import akura.cloundnlp.backend.NlpBackends;
 import akura.cloundnlp.dtos.OntologyMapDto;
-import akura.utility.APIConnection;
+import akura.utility.GsonProvider;
+import akura.utility.LanguageServiceClientPool;
 import com.google.cloud.language.v1beta2.Entity;
-import com.google.cloud.language.v1beta2.LanguageServiceClient;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.Collections;
@@ -26,7 +24,7 @@ import java.util.regex.Pattern;
  * Test scenario class for test methods
  */
 public class TestScenario {
-    private static LanguageServiceClient languageServiceClient;
+    private static NlpBackend nlpBackend;
     static EntityExtractor entityExtractor = new EntityExtractor();
     static SpecificationExtractor specificationExtractor = new SpecificationExtractor();
 
@@ -35,7 +33,7 @@ public class TestScenario {
 //        System.out.println(Pattern.compile("\\b"+"iPhone 6"+"\\b").matcher("I have an iPhone 6S and a Samsung Galaxy 6S").find());
 //        System.out.println(Pattern.compile("\\b"+"iPhone 6S"+"\\b").matcher("I have an iPhone 6S and a Samsung Galaxy 6S").find());
 //        System.out.println(Pattern.compile("\\b"+"6S"+"\\b").matcher("I have an iPhone 6S and a Samsung Galaxy 6S").find());
-        languageServiceClient = APIConnection.provideLanguageServiceClient();
+        nlpBackend = NlpBackends.get();
         JSONParser jsonParser = new JSONParser();
         JSONArray array = (JSONArray) jsonParser.parse(new FileReader("./src/main/java/akura/cloundnlp/sample_resources/SampleReviews.json"));
         List<OntologyMapDto> ontologyMapDtos = new LinkedList<>();
@@ -62,17 +60,15 @@ public class TestScenario {
             jsonObject.replace("reviewContent", newString);
             jsonObject.put("mainEntity", "IPhone 6S");//should change before deployment
 
-            OntologyMapDto ontologyMapDto = entityExtractor.constructJson(jsonObject, entityExtractor.identifyReviewCategory(newString, languageServiceClient), entityExtractor.analyseSyntax(newString, languageServiceClient));
+            OntologyMapDto ontologyMapDto = entityExtractor.constructJson(jsonObject, entityExtractor.annotateReview(newString, nlpBackend));
 //            specificationExtractor.extractDomainsFromSentenceSyntax(ontologyMapDto.getFinalEntityTaggedList());
             ontologyMapDtos.add(ontologyMapDto);
 
-            System.out.println(new GsonBuilder().setPrettyPrinting().create().toJson(ontologyMapDtos));
+            System.out.println(GsonProvider.pretty().toJson(ontologyMapDtos));
         }
 
-        try (Writer writer = new FileWriter("Output.json")) {
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
-            gson.toJson(ontologyMapDtos, writer);
-        }
+        entityExtractor.writeDocumentOutput(ontologyMapDtos);
+        LanguageServiceClientPool.getInstance().shutdown();
 
 //        String text = "The iPhone 6 Plus has a 5.5-inch Retina HD display, with a pixel density of 401ppi and a resolution of 1920 x 1080 pixels.";
 //        //relationships -----> has a, comes with a, has, comes with
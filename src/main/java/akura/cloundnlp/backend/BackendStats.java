@@ -0,0 +1,107 @@
+package akura.cloundnlp.backend;
+
+import akura.utility.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Live latency of an nlp backend: an exponentially weighted moving average per method and the calls in flight.
+ * One instance per backend name, shared by all requests.
+ */
+public class BackendStats {
+    private static final double ALPHA = 0.2;
+    private static final Map<String, BackendStats> STATS = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> averageLatencies = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong lastProbeMillis = new AtomicLong();
+    private volatile long lastCallMillis;
+
+    private BackendStats() {
+    }
+
+    /**
+     * Provide the stats of a backend
+     *
+     * @param backend - backend name.
+     * @return
+     */
+    public static BackendStats of(String backend) {
+        return STATS.computeIfAbsent(backend, name -> {
+            BackendStats stats = new BackendStats();
+            Metrics.registerGauge("akura_nlp_backend_" + name + "_calls_total", "Calls routed to the " + name + " nlp backend.", true, stats.calls::get);
+            Metrics.registerGauge("akura_nlp_backend_" + name + "_errors_total", "Failed calls of the " + name + " nlp backend.", true, stats.errors::get);
+            Metrics.registerGauge("akura_nlp_backend_" + name + "_in_flight", "Calls of the " + name + " nlp backend in flight.", false, stats.inFlight::get);
+            return stats;
+        });
+    }
+
+    /**
+     * Run and time a backend call
+     *
+     * @param method
+     * @param call
+     * @param <T>
+     * @return
+     */
+    public <T> T record(String method, Supplier<T> call) {
+        inFlight.incrementAndGet();
+        calls.incrementAndGet();
+        long startNanos = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+            lastCallMillis = System.currentTimeMillis();
+            update(averageLatencies.computeIfAbsent(method, name -> new AtomicLong(Double.doubleToLongBits(-1))),
+                    (System.nanoTime() - startNanos) / 1e6);
+        }
+    }
+
+    private void update(AtomicLong average, double latencyMillis) {
+        long current;
+        long updated;
+        do {
+            current = average.get();
+            double currentMillis = Double.longBitsToDouble(current);
+            updated = Double.doubleToLongBits(currentMillis < 0 ? latencyMillis : currentMillis + ALPHA * (latencyMillis - currentMillis));
+        } while (!average.compareAndSet(current, updated));
+    }
+
+    /**
+     * Average latency of a method
+     *
+     * @param method
+     * @return milliseconds, or -1 before the first call
+     */
+    public double getAverageLatencyMillis(String method) {
+        AtomicLong average = averageLatencies.get(method);
+        return average == null ? -1 : Double.longBitsToDouble(average.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Claim a probe call when the backend has not been called for the given interval, so a backend that was avoided
+     * for being slow gets a chance to show it recovered. Only one caller per interval gets the probe.
+     *
+     * @param intervalMillis
+     * @return
+     */
+    public boolean tryProbe(long intervalMillis) {
+        long now = System.currentTimeMillis();
+        long lastProbe = lastProbeMillis.get();
+        return now - Math.max(lastProbe, lastCallMillis) >= intervalMillis && lastProbeMillis.compareAndSet(lastProbe, now);
+    }
+}
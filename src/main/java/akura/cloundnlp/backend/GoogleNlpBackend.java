@@ -0,0 +1,94 @@
+package akura.cloundnlp.backend;
+
+import akura.utility.NlpResponseCache;
+import com.google.cloud.language.v1beta2.*;
+
+/**
+ * Google Cloud NLP behind the {@link NlpResponseCache}
+ */
+public class GoogleNlpBackend implements NlpBackend {
+    public static final String NAME = "google";
+
+    private final LanguageServiceClient languageServiceClient;
+
+    /**
+     * @param languageServiceClient - borrowed from the client pool, not closed by the backend.
+     */
+    public GoogleNlpBackend(LanguageServiceClient languageServiceClient) {
+        this.languageServiceClient = languageServiceClient;
+    }
+
+    /**
+     * Whether a response of this backend is cached, so it can be served without a remote call
+     *
+     * @param method   - backend method name, e.g. analyzeSyntax.
+     * @param document
+     * @return
+     */
+    public static boolean isCached(String method, Document document) {
+        EncodingType encodingType = "classifyText".equals(method) ? EncodingType.NONE : EncodingType.UTF16;
+        return NlpResponseCache.getInstance().contains(method, document, encodingType);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ClassifyTextResponse classifyText(Document document) {
+        ClassifyTextRequest request = ClassifyTextRequest.newBuilder()
+                .setDocument(document)
+                .build();
+        return NlpResponseCache.getInstance().get(
+                "classifyText", document, EncodingType.NONE, ClassifyTextResponse.parser(),
+                () -> languageServiceClient.classifyText(request));
+    }
+
+    @Override
+    public AnalyzeEntitySentimentResponse analyzeEntitySentiment(Document document) {
+        AnalyzeEntitySentimentRequest request = AnalyzeEntitySentimentRequest.newBuilder().setDocument(document).setEncodingType(EncodingType.UTF16).build();
+        return NlpResponseCache.getInstance().get(
+                "analyzeEntitySentiment", document, EncodingType.UTF16, AnalyzeEntitySentimentResponse.parser(),
+                () -> languageServiceClient.analyzeEntitySentiment(request));
+    }
+
+    @Override
+    public AnalyzeSyntaxResponse analyzeSyntax(Document document) {
+        AnalyzeSyntaxRequest request = AnalyzeSyntaxRequest.newBuilder().setDocument(document).setEncodingType(EncodingType.UTF16).build();
+        return NlpResponseCache.getInstance().get(
+                "analyzeSyntax", document, EncodingType.UTF16, AnalyzeSyntaxResponse.parser(),
+                () -> languageServiceClient.analyzeSyntax(request));
+    }
+
+    @Override
+    public AnalyzeSentimentResponse analyzeSentiment(Document document) {
+        AnalyzeSentimentRequest request = AnalyzeSentimentRequest.newBuilder().setDocument(document).setEncodingType(EncodingType.UTF16).build();
+        return NlpResponseCache.getInstance().get(
+                "analyzeSentiment", document, EncodingType.UTF16, AnalyzeSentimentResponse.parser(),
+                () -> languageServiceClient.analyzeSentiment(request));
+    }
+
+    /**
+     * A single annotate request instead of separate classify, entity and syntax requests
+     *
+     * @param document
+     * @return
+     */
+    @Override
+    public AnnotateTextResponse annotateText(Document document) {
+        AnnotateTextRequest.Features features = AnnotateTextRequest.Features.newBuilder()
+                .setClassifyText(true)
+                .setExtractEntitySentiment(true)
+                .setExtractSyntax(true)
+                .build();
+        AnnotateTextRequest request = AnnotateTextRequest.newBuilder()
+                .setDocument(document)
+                .setFeatures(features)
+                .setEncodingType(EncodingType.UTF16)
+                .build();
+        return NlpResponseCache.getInstance().get(
+                "annotateText", document, EncodingType.UTF16, AnnotateTextResponse.parser(),
+                () -> languageServiceClient.annotateText(request));
+    }
+}
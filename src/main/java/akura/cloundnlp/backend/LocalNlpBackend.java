@@ -0,0 +1,345 @@
+package akura.cloundnlp.backend;
+
+import akura.corenlp.AnnotatorProfile;
+import akura.corenlp.CoreNlpPipelines;
+import akura.corenlp.SentimentEngine;
+import akura.utility.Metrics;
+import com.google.cloud.language.v1beta2.*;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.util.CoreMap;
+
+import java.util.*;
+
+/**
+ * Local analysis with the CoreNLP models, without network calls or per call billing.
+ * Entities are the named entity mentions plus the noun phrases outside of them, their salience is their share of all
+ * mentions and their sentiment is the sentiment of the sentences they are mentioned in. CoreNLP has no content
+ * classifier, so {@link #classifyText(Document)} returns no categories.
+ */
+public class LocalNlpBackend implements NlpBackend {
+    public static final String NAME = "local";
+    private static final String LANGUAGE = "en";
+    private static final LocalNlpBackend INSTANCE = new LocalNlpBackend();
+
+    private LocalNlpBackend() {
+    }
+
+    public static LocalNlpBackend getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ClassifyTextResponse classifyText(Document document) {
+        return ClassifyTextResponse.getDefaultInstance();
+    }
+
+    @Override
+    public AnalyzeEntitySentimentResponse analyzeEntitySentiment(Document document) {
+        long startNanos = System.nanoTime();
+        Annotation annotation = annotate(AnnotatorProfile.ENTITY_SENTIMENT, document);
+        AnalyzeEntitySentimentResponse response = AnalyzeEntitySentimentResponse.newBuilder()
+                .addAllEntities(buildEntities(annotation, sentenceScores(annotation)))
+                .setLanguage(LANGUAGE)
+                .build();
+        Metrics.recordStage("localAnalyzeEntitySentiment", startNanos);
+        return response;
+    }
+
+    @Override
+    public AnalyzeSyntaxResponse analyzeSyntax(Document document) {
+        long startNanos = System.nanoTime();
+        Annotation annotation = annotate(AnnotatorProfile.SYNTAX, document);
+        AnalyzeSyntaxResponse response = AnalyzeSyntaxResponse.newBuilder()
+                .addAllSentences(buildSentences(annotation, null))
+                .addAllTokens(buildTokens(annotation))
+                .setLanguage(LANGUAGE)
+                .build();
+        Metrics.recordStage("localAnalyzeSyntax", startNanos);
+        return response;
+    }
+
+    @Override
+    public AnalyzeSentimentResponse analyzeSentiment(Document document) {
+        long startNanos = System.nanoTime();
+        Annotation annotation = annotate(AnnotatorProfile.SENTIMENT, document);
+        float[] scores = sentenceScores(annotation);
+        AnalyzeSentimentResponse response = AnalyzeSentimentResponse.newBuilder()
+                .setDocumentSentiment(documentSentiment(annotation, scores))
+                .addAllSentences(buildSentences(annotation, scores))
+                .setLanguage(LANGUAGE)
+                .build();
+        Metrics.recordStage("localAnalyzeSentiment", startNanos);
+        return response;
+    }
+
+    /**
+     * Annotates the document once for entities, sentiment and syntax
+     *
+     * @param document
+     * @return
+     */
+    @Override
+    public AnnotateTextResponse annotateText(Document document) {
+        long startNanos = System.nanoTime();
+        Annotation annotation = annotate(AnnotatorProfile.ENTITY_SENTIMENT, document);
+        float[] scores = sentenceScores(annotation);
+        AnnotateTextResponse response = AnnotateTextResponse.newBuilder()
+                .addAllSentences(buildSentences(annotation, scores))
+                .addAllTokens(buildTokens(annotation))
+                .addAllEntities(buildEntities(annotation, scores))
+                .setDocumentSentiment(documentSentiment(annotation, scores))
+                .setLanguage(LANGUAGE)
+                .build();
+        Metrics.recordStage("localAnnotateText", startNanos);
+        return response;
+    }
+
+    private Annotation annotate(AnnotatorProfile profile, Document document) {
+        Annotation annotation = new Annotation(document.getContent());
+        CoreNlpPipelines.get(profile).annotate(annotation);
+        return annotation;
+    }
+
+    private List<CoreMap> sentencesOf(Annotation annotation) {
+        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        return sentences == null ? Collections.<CoreMap>emptyList() : sentences;
+    }
+
+    /**
+     * Sentiment score of every sentence in [-1, 1]
+     *
+     * @param annotation
+     * @return
+     */
+    private float[] sentenceScores(Annotation annotation) {
+        List<CoreMap> sentences = sentencesOf(annotation);
+        float[] scores = new float[sentences.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = (float) SentimentEngine.scoreSentence(sentences.get(i)).getScore();
+        }
+        return scores;
+    }
+
+    private Sentiment sentiment(float score) {
+        return Sentiment.newBuilder().setScore(score).setMagnitude(Math.abs(score)).build();
+    }
+
+    /**
+     * Score of the sentence length weighted class distribution, with the summed magnitude of the sentences
+     */
+    private Sentiment documentSentiment(Annotation annotation, float[] scores) {
+        double magnitude = 0;
+        for (float score : scores) {
+            magnitude += Math.abs(score);
+        }
+        return Sentiment.newBuilder()
+                .setScore((float) SentimentEngine.scoreDocument(annotation).getScore())
+                .setMagnitude((float) magnitude)
+                .build();
+    }
+
+    private List<Sentence> buildSentences(Annotation annotation, float[] scores) {
+        List<CoreMap> sentences = sentencesOf(annotation);
+        List<Sentence> sentenceList = new ArrayList<>(sentences.size());
+        for (int i = 0; i < sentences.size(); i++) {
+            CoreMap sentence = sentences.get(i);
+            Sentence.Builder builder = Sentence.newBuilder().setText(textSpan(
+                    sentence.get(CoreAnnotations.TextAnnotation.class),
+                    sentence.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class)));
+            if (scores != null) {
+                builder.setSentiment(sentiment(scores[i]));
+            }
+            sentenceList.add(builder.build());
+        }
+        return sentenceList;
+    }
+
+    private List<Token> buildTokens(Annotation annotation) {
+        List<Token> tokens = new ArrayList<>();
+        for (CoreMap sentence : sentencesOf(annotation)) {
+            for (CoreLabel label : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
+                tokens.add(Token.newBuilder()
+                        .setText(textSpan(label.word(), label.beginPosition()))
+                        .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(partOfSpeech(label.tag())))
+                        .setLemma(label.lemma() == null ? label.word() : label.lemma())
+                        .build());
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Group the named entity and noun phrase mentions of every sentence by their lower case text
+     */
+    private List<Entity> buildEntities(Annotation annotation, float[] scores) {
+        String content = annotation.get(CoreAnnotations.TextAnnotation.class);
+        Map<String, List<EntityMention>> mentionsByName = new LinkedHashMap<>();
+        Map<String, Entity.Type> typeByName = new HashMap<>();
+        int mentionCount = 0;
+        List<CoreMap> sentences = sentencesOf(annotation);
+        for (int i = 0; i < sentences.size(); i++) {
+            Sentiment sentiment = sentiment(scores[i]);
+            BitSet covered = new BitSet();
+            List<CoreMap> namedMentions = sentences.get(i).get(CoreAnnotations.MentionsAnnotation.class);
+            if (namedMentions != null) {
+                for (CoreMap namedMention : namedMentions) {
+                    int begin = namedMention.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
+                    int end = namedMention.get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
+                    covered.set(begin, end);
+                    Entity.Type type = entityType(namedMention.get(CoreAnnotations.NamedEntityTagAnnotation.class));
+                    if (type != null) {
+                        addMention(mentionsByName, typeByName, type, mention(content, begin, end, EntityMention.Type.PROPER, sentiment));
+                        mentionCount++;
+                    }
+                }
+            }
+            int nounBegin = -1;
+            int nounEnd = -1;
+            for (CoreLabel label : sentences.get(i).get(CoreAnnotations.TokensAnnotation.class)) {
+                boolean noun = label.tag() != null && label.tag().startsWith("NN") && !covered.get(label.beginPosition());
+                if (noun) {
+                    nounBegin = (nounBegin < 0) ? label.beginPosition() : nounBegin;
+                    nounEnd = label.endPosition();
+                } else if (nounBegin >= 0) {
+                    addMention(mentionsByName, typeByName, Entity.Type.OTHER, mention(content, nounBegin, nounEnd, EntityMention.Type.COMMON, sentiment));
+                    mentionCount++;
+                    nounBegin = -1;
+                }
+            }
+            if (nounBegin >= 0) {
+                addMention(mentionsByName, typeByName, Entity.Type.OTHER, mention(content, nounBegin, nounEnd, EntityMention.Type.COMMON, sentiment));
+                mentionCount++;
+            }
+        }
+
+        List<Entity> entities = new ArrayList<>(mentionsByName.size());
+        for (Map.Entry<String, List<EntityMention>> entry : mentionsByName.entrySet()) {
+            List<EntityMention> mentions = entry.getValue();
+            float score = 0;
+            float magnitude = 0;
+            for (EntityMention mention : mentions) {
+                score += mention.getSentiment().getScore();
+                magnitude += mention.getSentiment().getMagnitude();
+            }
+            entities.add(Entity.newBuilder()
+                    .setName(mentions.get(0).getText().getContent())
+                    .setType(typeByName.get(entry.getKey()))
+                    .setSalience((float) mentions.size() / mentionCount)
+                    .setSentiment(Sentiment.newBuilder().setScore(score / mentions.size()).setMagnitude(magnitude))
+                    .addAllMentions(mentions)
+                    .build());
+        }
+        entities.sort((first, second) -> Float.compare(second.getSalience(), first.getSalience()));
+        return entities;
+    }
+
+    private void addMention(Map<String, List<EntityMention>> mentionsByName, Map<String, Entity.Type> typeByName, Entity.Type type, EntityMention mention) {
+        String name = mention.getText().getContent().toLowerCase();
+        mentionsByName.computeIfAbsent(name, key -> new ArrayList<>()).add(mention);
+        typeByName.putIfAbsent(name, type);
+    }
+
+    private EntityMention mention(String content, int begin, int end, EntityMention.Type type, Sentiment sentiment) {
+        return EntityMention.newBuilder()
+                .setText(textSpan(content.substring(begin, end), begin))
+                .setType(type)
+                .setSentiment(sentiment)
+                .build();
+    }
+
+    private TextSpan textSpan(String content, Integer beginOffset) {
+        return TextSpan.newBuilder().setContent(content).setBeginOffset(beginOffset == null ? -1 : beginOffset).build();
+    }
+
+    /**
+     * Google entity type of a CoreNLP named entity tag
+     *
+     * @param nerTag
+     * @return null for numeric, date and time mentions, which Google NLP does not report as entities
+     */
+    private Entity.Type entityType(String nerTag) {
+        if (nerTag == null) {
+            return null;
+        }
+        switch (nerTag) {
+            case "PERSON":
+                return Entity.Type.PERSON;
+            case "LOCATION":
+            case "CITY":
+            case "COUNTRY":
+            case "STATE_OR_PROVINCE":
+                return Entity.Type.LOCATION;
+            case "ORGANIZATION":
+                return Entity.Type.ORGANIZATION;
+            case "MISC":
+            case "NATIONALITY":
+            case "RELIGION":
+            case "TITLE":
+            case "IDEOLOGY":
+            case "CRIMINAL_CHARGE":
+            case "CAUSE_OF_DEATH":
+                return Entity.Type.OTHER;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Google part of speech tag of a Penn Treebank tag
+     *
+     * @param pennTag
+     * @return
+     */
+    private PartOfSpeech.Tag partOfSpeech(String pennTag) {
+        if (pennTag == null) {
+            return PartOfSpeech.Tag.UNKNOWN;
+        }
+        if (pennTag.startsWith("NN")) {
+            return PartOfSpeech.Tag.NOUN;
+        } else if (pennTag.startsWith("VB") || pennTag.equals("MD")) {
+            return PartOfSpeech.Tag.VERB;
+        } else if (pennTag.startsWith("JJ")) {
+            return PartOfSpeech.Tag.ADJ;
+        } else if (pennTag.startsWith("RB") || pennTag.equals("WRB")) {
+            return PartOfSpeech.Tag.ADV;
+        } else if (pennTag.startsWith("PRP") || pennTag.startsWith("WP") || pennTag.equals("EX")) {
+            return PartOfSpeech.Tag.PRON;
+        }
+        switch (pennTag) {
+            case "DT":
+            case "PDT":
+            case "WDT":
+                return PartOfSpeech.Tag.DET;
+            case "IN":
+                return PartOfSpeech.Tag.ADP;
+            case "CC":
+                return PartOfSpeech.Tag.CONJ;
+            case "CD":
+                return PartOfSpeech.Tag.NUM;
+            case "RP":
+            case "TO":
+            case "POS":
+                return PartOfSpeech.Tag.PRT;
+            case ".":
+            case ",":
+            case ":":
+            case "``":
+            case "''":
+            case "-LRB-":
+            case "-RRB-":
+            case "HYPH":
+            case "#":
+            case "$":
+                return PartOfSpeech.Tag.PUNCT;
+            default:
+                return PartOfSpeech.Tag.X;
+        }
+    }
+}
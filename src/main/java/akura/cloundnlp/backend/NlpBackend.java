@@ -0,0 +1,85 @@
+package akura.cloundnlp.backend;
+
+import com.google.cloud.language.v1beta2.AnalyzeEntitySentimentResponse;
+import com.google.cloud.language.v1beta2.AnalyzeSentimentResponse;
+import com.google.cloud.language.v1beta2.AnalyzeSyntaxResponse;
+import com.google.cloud.language.v1beta2.AnnotateTextResponse;
+import com.google.cloud.language.v1beta2.ClassifyTextResponse;
+import com.google.cloud.language.v1beta2.Document;
+
+/**
+ * Text analysis used by the extractors.
+ * Results use the Google NLP response types whichever backend produced them, and text offsets are UTF16, i.e.
+ * java string indexes. Implementations are thread safe.
+ */
+public interface NlpBackend {
+
+    /**
+     * Name of the backend, used in logs and metrics
+     *
+     * @return
+     */
+    String getName();
+
+    /**
+     * The backend to use for calls that must finish before a deadline, e.g. the end of a review's timeout.
+     * Backends which can trade quality for latency pick the faster path as the deadline comes closer,
+     * the others ignore it.
+     *
+     * @param deadlineNanos - {@link System#nanoTime()} by which the calls should be done.
+     * @return
+     */
+    default NlpBackend withDeadline(long deadlineNanos) {
+        return this;
+    }
+
+    /**
+     * Content categories of a document
+     *
+     * @param document
+     * @return
+     */
+    ClassifyTextResponse classifyText(Document document);
+
+    /**
+     * Entities of a document with their mentions, salience and sentiment
+     *
+     * @param document
+     * @return
+     */
+    AnalyzeEntitySentimentResponse analyzeEntitySentiment(Document document);
+
+    /**
+     * Tokens of a document with their part of speech and lemma
+     *
+     * @param document
+     * @return
+     */
+    AnalyzeSyntaxResponse analyzeSyntax(Document document);
+
+    /**
+     * Sentiment of a document and of each of its sentences
+     *
+     * @param document
+     * @return
+     */
+    AnalyzeSentimentResponse analyzeSentiment(Document document);
+
+    /**
+     * Categories, entity sentiment and syntax of a document together.
+     * Backends which can produce them in one go should override the separate calls made here.
+     *
+     * @param document
+     * @return
+     */
+    default AnnotateTextResponse annotateText(Document document) {
+        AnalyzeSyntaxResponse syntax = analyzeSyntax(document);
+        return AnnotateTextResponse.newBuilder()
+                .addAllCategories(classifyText(document).getCategoriesList())
+                .addAllEntities(analyzeEntitySentiment(document).getEntitiesList())
+                .addAllSentences(syntax.getSentencesList())
+                .addAllTokens(syntax.getTokensList())
+                .setLanguage(syntax.getLanguage())
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package akura.cloundnlp.backend;
+
+import akura.utility.EngineConfiguration;
+import akura.utility.LanguageServiceClientPool;
+
+import java.io.IOException;
+
+/**
+ * Provides the nlp backend selected by {@link EngineConfiguration#NLP_BACKEND}
+ */
+public class NlpBackends {
+
+    /**
+     * The configured backend, "google", "local" or "routed"
+     *
+     * @return
+     * @throws IOException when a Google client can not be created
+     */
+    public static NlpBackend get() throws IOException {
+        if (LocalNlpBackend.NAME.equalsIgnoreCase(EngineConfiguration.NLP_BACKEND)) {
+            return local();
+        } else if (RoutingNlpBackend.NAME.equalsIgnoreCase(EngineConfiguration.NLP_BACKEND)) {
+            return routed(EngineConfiguration.NLP_LATENCY_BUDGET_MILLIS);
+        }
+        return google();
+    }
+
+    /**
+     * Google NLP and the local backend behind a router
+     *
+     * @param latencyBudgetMillis - latency budget of a single call.
+     * @return
+     * @throws IOException
+     */
+    public static NlpBackend routed(long latencyBudgetMillis) throws IOException {
+        return new RoutingNlpBackend(
+                new GoogleNlpBackend(LanguageServiceClientPool.getInstance().acquire()),
+                LocalNlpBackend.getInstance(),
+                latencyBudgetMillis
+        );
+    }
+
+    /**
+     * Google NLP with a client borrowed from the {@link LanguageServiceClientPool}
+     *
+     * @return
+     * @throws IOException
+     */
+    public static NlpBackend google() throws IOException {
+        return new GoogleNlpBackend(LanguageServiceClientPool.getInstance().acquire());
+    }
+
+    public static NlpBackend local() {
+        return LocalNlpBackend.getInstance();
+    }
+}
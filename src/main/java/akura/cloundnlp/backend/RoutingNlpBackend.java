@@ -0,0 +1,189 @@
+package akura.cloundnlp.backend;
+
+import akura.corenlp.CoreNlpPipelines;
+import akura.utility.EngineConfiguration;
+import akura.utility.LogStage;
+import akura.utility.Logger;
+import akura.utility.Metrics;
+import com.google.cloud.language.v1beta2.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Routes every call to Google NLP or to the local CoreNLP backend within a latency budget.
+ * <ul>
+ * <li>Responses already in the Google NLP cache are served from it.</li>
+ * <li>Classification only exists remotely, so classifyText always goes remote. An annotateText routed locally takes
+ * entities and syntax from the local backend and its categories from a remote classifyText.</li>
+ * <li>Short texts, up to {@link EngineConfiguration#NLP_ROUTE_SHORT_TEXT_CHARS}, go local.</li>
+ * <li>Cache misses beyond {@link EngineConfiguration#NLP_ROUTE_MAX_REMOTE_IN_FLIGHT} concurrent remote calls go local.</li>
+ * <li>Other texts go remote while its average latency fits the budget, otherwise to the faster backend, with a
+ * periodic remote probe to notice when it recovers. A backend from {@link #withDeadline(long)} narrows the budget to
+ * the time left before the deadline and does not probe once that is shorter than the budget.</li>
+ * <li>A failed remote call is retried locally. A failed remote classification leaves the categories empty, which
+ * is logged and counted in akura_nlp_route_degraded_classifications_total.</li>
+ * </ul>
+ * Until the CoreNLP warm up has finished every call goes remote.
+ */
+public class RoutingNlpBackend implements NlpBackend {
+    public static final String NAME = "routed";
+    private static final AtomicLong DEGRADED_CLASSIFICATIONS = new AtomicLong();
+
+    static {
+        Metrics.registerGauge("akura_nlp_route_degraded_classifications_total", "Routed calls answered without content categories.", true, DEGRADED_CLASSIFICATIONS::get);
+    }
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final GoogleNlpBackend remote;
+    private final NlpBackend local;
+    private final long latencyBudgetMillis;
+    private final long deadlineNanos;
+    private final BackendStats remoteStats;
+    private final BackendStats localStats;
+
+    /**
+     * @param remote
+     * @param local
+     * @param latencyBudgetMillis - latency budget of a single call, see {@link #withDeadline(long)} for a per request budget.
+     */
+    public RoutingNlpBackend(GoogleNlpBackend remote, NlpBackend local, long latencyBudgetMillis) {
+        this.remote = remote;
+        this.local = local;
+        this.latencyBudgetMillis = latencyBudgetMillis;
+        this.deadlineNanos = NO_DEADLINE;
+        this.remoteStats = BackendStats.of(remote.getName());
+        this.localStats = BackendStats.of(local.getName());
+    }
+
+    private RoutingNlpBackend(RoutingNlpBackend routing, long deadlineNanos) {
+        this.remote = routing.remote;
+        this.local = routing.local;
+        this.latencyBudgetMillis = routing.latencyBudgetMillis;
+        this.deadlineNanos = deadlineNanos;
+        this.remoteStats = routing.remoteStats;
+        this.localStats = routing.localStats;
+    }
+
+    /**
+     * Routing over the same backends and statistics, with the budget of each call cut to the time left before the deadline
+     *
+     * @param deadlineNanos - {@link System#nanoTime()} by which the calls should be done.
+     * @return
+     */
+    @Override
+    public RoutingNlpBackend withDeadline(long deadlineNanos) {
+        return new RoutingNlpBackend(this, deadlineNanos);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ClassifyTextResponse classifyText(Document document) {
+        if (GoogleNlpBackend.isCached("classifyText", document)) {
+            return remote.classifyText(document);
+        }
+        try {
+            return remoteStats.record("classifyText", () -> remote.classifyText(document));
+        } catch (RuntimeException e) {
+            DEGRADED_CLASSIFICATIONS.incrementAndGet();
+            Logger.warn(LogStage.SERVICE, "Remote classifyText failed, answering without categories: " + e.getMessage());
+            return ClassifyTextResponse.getDefaultInstance();
+        }
+    }
+
+    @Override
+    public AnalyzeEntitySentimentResponse analyzeEntitySentiment(Document document) {
+        return route("analyzeEntitySentiment", document, NlpBackend::analyzeEntitySentiment);
+    }
+
+    @Override
+    public AnalyzeSyntaxResponse analyzeSyntax(Document document) {
+        return route("analyzeSyntax", document, NlpBackend::analyzeSyntax);
+    }
+
+    @Override
+    public AnalyzeSentimentResponse analyzeSentiment(Document document) {
+        return route("analyzeSentiment", document, NlpBackend::analyzeSentiment);
+    }
+
+    @Override
+    public AnnotateTextResponse annotateText(Document document) {
+        return route("annotateText", document, (backend, doc) -> backend == local ? annotateLocally(doc) : backend.annotateText(doc));
+    }
+
+    /**
+     * Entities and syntax from the local backend, categories from the remote classifier
+     *
+     * @param document
+     * @return
+     */
+    private AnnotateTextResponse annotateLocally(Document document) {
+        return local.annotateText(document).toBuilder()
+                .clearCategories()
+                .addAllCategories(classifyText(document).getCategoriesList())
+                .build();
+    }
+
+    private <T> T route(String method, Document document, BiFunction<NlpBackend, Document, T> call) {
+        if (GoogleNlpBackend.isCached(method, document)) {
+            return call.apply(remote, document);
+        }
+        if (choose(method, document) == local) {
+            return localStats.record(method, () -> call.apply(local, document));
+        }
+        try {
+            return remoteStats.record(method, () -> call.apply(remote, document));
+        } catch (RuntimeException e) {
+            if (!CoreNlpPipelines.isWarm()) {
+                throw e;
+            }
+            Logger.warn(LogStage.SERVICE, "Remote " + method + " failed, using the local backend: " + e.getMessage());
+            return localStats.record(method, () -> call.apply(local, document));
+        }
+    }
+
+    /**
+     * Pick the backend of a cache miss, for every method but classifyText
+     *
+     * @param method
+     * @param document
+     * @return
+     */
+    NlpBackend choose(String method, Document document) {
+        if (!CoreNlpPipelines.isWarm()) {
+            return remote;
+        }
+        if (document.getContent().length() <= EngineConfiguration.NLP_ROUTE_SHORT_TEXT_CHARS) {
+            return local;
+        }
+        if (remoteStats.getInFlight() >= EngineConfiguration.NLP_ROUTE_MAX_REMOTE_IN_FLIGHT) {
+            return local;
+        }
+        long budgetMillis = budgetMillis();
+        double remoteLatency = remoteStats.getAverageLatencyMillis(method);
+        if (remoteLatency <= budgetMillis
+                || (budgetMillis >= latencyBudgetMillis && remoteStats.tryProbe(EngineConfiguration.NLP_ROUTE_PROBE_MILLIS))) {
+            return remote;
+        }
+        double localLatency = localStats.getAverageLatencyMillis(method);
+        return localLatency < remoteLatency ? local : remote;
+    }
+
+    /**
+     * Latency budget of the next call, the configured budget or the time left before the deadline when that is shorter
+     *
+     * @return
+     */
+    long budgetMillis() {
+        if (deadlineNanos == NO_DEADLINE) {
+            return latencyBudgetMillis;
+        }
+        return Math.min(latencyBudgetMillis, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+}
@@ -0,0 +1,393 @@
+package akura.cloundnlp.dtos;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming type adapters for the ontology output dtos.
+ * They write the same json as Gson's reflective adapters, field names and order included, without reflection.
+ * Null fields are written as null values so the writer drops them unless nulls are serialized.
+ */
+public class DtoTypeAdapterFactory implements TypeAdapterFactory {
+    public static final TypeAdapter<SyntaxDto> SYNTAX_DTO_ADAPTER = new SyntaxDtoAdapter().nullSafe();
+    public static final TypeAdapter<EntityDto> ENTITY_DTO_ADAPTER = new EntityDtoAdapter().nullSafe();
+    public static final TypeAdapter<FinalEntityTagDto> FINAL_ENTITY_TAG_DTO_ADAPTER = new FinalEntityTagDtoAdapter().nullSafe();
+    public static final TypeAdapter<SpecRelationshipDto> SPEC_RELATIONSHIP_DTO_ADAPTER = new SpecRelationshipDtoAdapter().nullSafe();
+    public static final TypeAdapter<SpecificationDto> SPECIFICATION_DTO_ADAPTER = new SpecificationDtoAdapter().nullSafe();
+    public static final TypeAdapter<OntologyMapDto> ONTOLOGY_MAP_DTO_ADAPTER = new OntologyMapDtoAdapter().nullSafe();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == OntologyMapDto.class) {
+            return (TypeAdapter<T>) ONTOLOGY_MAP_DTO_ADAPTER;
+        } else if (rawType == EntityDto.class) {
+            return (TypeAdapter<T>) ENTITY_DTO_ADAPTER;
+        } else if (rawType == SyntaxDto.class) {
+            return (TypeAdapter<T>) SYNTAX_DTO_ADAPTER;
+        } else if (rawType == FinalEntityTagDto.class) {
+            return (TypeAdapter<T>) FINAL_ENTITY_TAG_DTO_ADAPTER;
+        } else if (rawType == SpecificationDto.class) {
+            return (TypeAdapter<T>) SPECIFICATION_DTO_ADAPTER;
+        } else if (rawType == SpecRelationshipDto.class) {
+            return (TypeAdapter<T>) SPEC_RELATIONSHIP_DTO_ADAPTER;
+        }
+        return null;
+    }
+
+    private static class SyntaxDtoAdapter extends TypeAdapter<SyntaxDto> {
+        @Override
+        public void write(JsonWriter out, SyntaxDto value) throws IOException {
+            out.beginObject();
+            out.name("text").value(value.getText());
+            out.name("pos").value(value.getPos());
+            out.name("lemma").value(value.getLemma());
+            out.endObject();
+        }
+
+        @Override
+        public SyntaxDto read(JsonReader in) throws IOException {
+            SyntaxDto syntaxDto = new SyntaxDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "text":
+                        syntaxDto.setText(readString(in));
+                        break;
+                    case "pos":
+                        syntaxDto.setPos(readString(in));
+                        break;
+                    case "lemma":
+                        syntaxDto.setLemma(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return syntaxDto;
+        }
+    }
+
+    private static class EntityDtoAdapter extends TypeAdapter<EntityDto> {
+        @Override
+        public void write(JsonWriter out, EntityDto value) throws IOException {
+            out.beginObject();
+            out.name("entityName").value(value.getEntityName());
+            out.name("baseScore").value(value.getBaseScore());
+            out.name("property");
+            writeStringMap(out, value.getProperty());
+            out.endObject();
+        }
+
+        @Override
+        public EntityDto read(JsonReader in) throws IOException {
+            EntityDto entityDto = new EntityDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "entityName":
+                        entityDto.setEntityName(readString(in));
+                        break;
+                    case "baseScore":
+                        entityDto.setBaseScore(in.nextDouble());
+                        break;
+                    case "property":
+                        entityDto.setProperty(readStringMap(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return entityDto;
+        }
+    }
+
+    private static class FinalEntityTagDtoAdapter extends TypeAdapter<FinalEntityTagDto> {
+        @Override
+        public void write(JsonWriter out, FinalEntityTagDto value) throws IOException {
+            out.beginObject();
+            out.name("text").value(value.getText());
+            out.name("sentiment").value(Float.valueOf(value.getSentiment()));
+            out.name("salience").value(Float.valueOf(value.getSalience()));
+            out.name("category").value(value.getCategory());
+            out.name("nounCombination").value(value.getNounCombination());
+            out.name("nounCombinationCategory").value(value.getNounCombinationCategory());
+            out.endObject();
+        }
+
+        @Override
+        public FinalEntityTagDto read(JsonReader in) throws IOException {
+            FinalEntityTagDto finalEntityTagDto = new FinalEntityTagDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "text":
+                        finalEntityTagDto.setText(readString(in));
+                        break;
+                    case "sentiment":
+                        finalEntityTagDto.setSentiment((float) in.nextDouble());
+                        break;
+                    case "salience":
+                        finalEntityTagDto.setSalience((float) in.nextDouble());
+                        break;
+                    case "category":
+                        finalEntityTagDto.setCategory(readString(in));
+                        break;
+                    case "nounCombination":
+                        finalEntityTagDto.setNounCombination(readString(in));
+                        break;
+                    case "nounCombinationCategory":
+                        finalEntityTagDto.setNounCombinationCategory(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return finalEntityTagDto;
+        }
+    }
+
+    private static class SpecRelationshipDtoAdapter extends TypeAdapter<SpecRelationshipDto> {
+        @Override
+        public void write(JsonWriter out, SpecRelationshipDto value) throws IOException {
+            out.beginObject();
+            out.name("finalEntityTagDto");
+            FINAL_ENTITY_TAG_DTO_ADAPTER.write(out, value.getFinalEntityTagDto());
+            out.name("relationship").value(value.getRelationship());
+            out.name("featureMap");
+            writeStringMap(out, value.getFeatureMap());
+            out.endObject();
+        }
+
+        @Override
+        public SpecRelationshipDto read(JsonReader in) throws IOException {
+            SpecRelationshipDto specRelationshipDto = new SpecRelationshipDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "finalEntityTagDto":
+                        specRelationshipDto.setFinalEntityTagDto(FINAL_ENTITY_TAG_DTO_ADAPTER.read(in));
+                        break;
+                    case "relationship":
+                        specRelationshipDto.setRelationship(readString(in));
+                        break;
+                    case "featureMap":
+                        specRelationshipDto.setFeatureMap(readStringMap(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return specRelationshipDto;
+        }
+    }
+
+    private static class SpecificationDtoAdapter extends TypeAdapter<SpecificationDto> {
+        @Override
+        public void write(JsonWriter out, SpecificationDto value) throws IOException {
+            out.beginObject();
+            out.name("mainEntity");
+            FINAL_ENTITY_TAG_DTO_ADAPTER.write(out, value.getMainEntity());
+            out.name("relativeEntityList");
+            writeList(out, value.getRelativeEntityList(), FINAL_ENTITY_TAG_DTO_ADAPTER);
+            out.name("featureMap");
+            writeStringMap(out, value.getFeatureMap());
+            out.name("specRelationshipDtoList");
+            writeList(out, value.getSpecRelationshipDtoList(), SPEC_RELATIONSHIP_DTO_ADAPTER);
+            out.endObject();
+        }
+
+        @Override
+        public SpecificationDto read(JsonReader in) throws IOException {
+            SpecificationDto specificationDto = new SpecificationDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "mainEntity":
+                        specificationDto.setMainEntity(FINAL_ENTITY_TAG_DTO_ADAPTER.read(in));
+                        break;
+                    case "relativeEntityList":
+                        specificationDto.setRelativeEntityList(readList(in, FINAL_ENTITY_TAG_DTO_ADAPTER));
+                        break;
+                    case "featureMap":
+                        specificationDto.setFeatureMap(readStringMap(in));
+                        break;
+                    case "specRelationshipDtoList":
+                        specificationDto.setSpecRelationshipDtoList(readList(in, SPEC_RELATIONSHIP_DTO_ADAPTER));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return specificationDto;
+        }
+    }
+
+    private static class OntologyMapDtoAdapter extends TypeAdapter<OntologyMapDto> {
+        @Override
+        public void write(JsonWriter out, OntologyMapDto value) throws IOException {
+            out.beginObject();
+            out.name("reviewId").value(value.getReviewId());
+            out.name("review").value(value.getReview());
+            out.name("reviewRating").value(Float.valueOf(value.getReviewRating()));
+            out.name("entityDtos");
+            writeList(out, value.getEntityDtos(), ENTITY_DTO_ADAPTER);
+            out.name("categoryMap");
+            writeFloatMap(out, value.getCategoryMap());
+            out.name("syntaxTagList");
+            writeList(out, value.getSyntaxTagList(), SYNTAX_DTO_ADAPTER);
+            out.name("finalEntityTaggedList");
+            writeList(out, value.getFinalEntityTaggedList(), FINAL_ENTITY_TAG_DTO_ADAPTER);
+            out.name("specificationDto");
+            SPECIFICATION_DTO_ADAPTER.write(out, value.getSpecificationDto());
+            out.endObject();
+        }
+
+        @Override
+        public OntologyMapDto read(JsonReader in) throws IOException {
+            OntologyMapDto ontologyMapDto = new OntologyMapDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "reviewId":
+                        ontologyMapDto.setReviewId(readString(in));
+                        break;
+                    case "review":
+                        ontologyMapDto.setReview(readString(in));
+                        break;
+                    case "reviewRating":
+                        ontologyMapDto.setReviewRating((float) in.nextDouble());
+                        break;
+                    case "entityDtos":
+                        ontologyMapDto.setEntityDtos(readList(in, ENTITY_DTO_ADAPTER));
+                        break;
+                    case "categoryMap":
+                        ontologyMapDto.setCategoryMap(readFloatMap(in));
+                        break;
+                    case "syntaxTagList":
+                        ontologyMapDto.setSyntaxTagList(readList(in, SYNTAX_DTO_ADAPTER));
+                        break;
+                    case "finalEntityTaggedList":
+                        ontologyMapDto.setFinalEntityTaggedList(readList(in, FINAL_ENTITY_TAG_DTO_ADAPTER));
+                        break;
+                    case "specificationDto":
+                        ontologyMapDto.setSpecificationDto(SPECIFICATION_DTO_ADAPTER.read(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return ontologyMapDto;
+        }
+    }
+
+    private static <T> void writeList(JsonWriter out, List<T> list, TypeAdapter<T> elementAdapter) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T element : list) {
+            elementAdapter.write(out, element);
+        }
+        out.endArray();
+    }
+
+    private static void writeStringMap(JsonWriter out, Map<String, String> map) throws IOException {
+        if (map == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            out.name(String.valueOf(entry.getKey())).value(entry.getValue());
+        }
+        out.endObject();
+    }
+
+    private static void writeFloatMap(JsonWriter out, Map<String, Float> map) throws IOException {
+        if (map == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        for (Map.Entry<String, Float> entry : map.entrySet()) {
+            out.name(String.valueOf(entry.getKey())).value(entry.getValue());
+        }
+        out.endObject();
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> elementAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    private static Map<String, String> readStringMap(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            map.put(in.nextName(), readString(in));
+        }
+        in.endObject();
+        return map;
+    }
+
+    private static Map<String, Float> readFloatMap(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Map<String, Float> map = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                map.put(key, null);
+            } else {
+                map.put(key, (float) in.nextDouble());
+            }
+        }
+        in.endObject();
+        return map;
+    }
+}
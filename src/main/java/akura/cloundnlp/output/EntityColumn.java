@@ -0,0 +1,34 @@
+package akura.cloundnlp.output;
+
+/**
+ * Columns of the binary entity output, one row per final entity tag of a review
+ */
+public enum EntityColumn {
+    REVIEW_ID(true),
+    TEXT(true),
+    CATEGORY(true),
+    SENTIMENT(false),
+    SALIENCE(false),
+    NOUN_COMBINATION(true),
+    NOUN_COMBINATION_CATEGORY(true);
+
+    private final boolean stringColumn;
+
+    EntityColumn(boolean stringColumn) {
+        this.stringColumn = stringColumn;
+    }
+
+    /**
+     * String columns are dictionary encoded, the others hold one float per row
+     *
+     * @return
+     */
+    public boolean isStringColumn() {
+        return stringColumn;
+    }
+
+    static EntityColumn fromId(int id) {
+        EntityColumn[] columns = values();
+        return (id >= 0 && id < columns.length) ? columns[id] : null;
+    }
+}
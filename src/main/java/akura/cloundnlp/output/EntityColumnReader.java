@@ -0,0 +1,234 @@
+package akura.cloundnlp.output;
+
+import akura.utility.LogStage;
+import akura.utility.Logger;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reader for files written by {@link EntityColumnWriter}.
+ * Only the requested columns are read and decompressed, the others are skipped using the lengths in the block header.
+ */
+public class EntityColumnReader implements Closeable {
+    private final FileChannel channel;
+
+    public EntityColumnReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer header = read(channel, 0, 8);
+        if (header.getInt() != EntityColumnWriter.MAGIC || header.getInt() != EntityColumnWriter.VERSION) {
+            channel.close();
+            throw new IOException("Not an entity column file: " + file);
+        }
+    }
+
+    /**
+     * Scan all blocks of the file.
+     * A block cut short by an interrupted writer ends the scan.
+     *
+     * @param columns  - columns to load.
+     * @param consumer - receives the blocks in file order.
+     * @return number of rows scanned
+     * @throws IOException when a block is corrupt, after the blocks before it have been passed to the consumer
+     */
+    public long scan(Set<EntityColumn> columns, Consumer<Block> consumer) throws IOException {
+        long rows = 0;
+        long position = 8;
+        long size = channel.size();
+        while (position < size) {
+            long blockStart = position;
+            Block block;
+            try {
+                ByteBuffer blockHeader = readBlockHeader(channel, position);
+                int rowCount = blockHeader.getInt();
+                int columnCount = blockHeader.getInt();
+                position += 12;
+
+                ByteBuffer columnHeader = read(channel, position, columnCount * 9);
+                position += columnCount * 9;
+                block = new Block(rowCount);
+                for (int i = 0; i < columnCount; i++) {
+                    EntityColumn column = EntityColumn.fromId(columnHeader.get());
+                    int length = columnHeader.getInt();
+                    int compressedLength = columnHeader.getInt();
+                    if (column != null && columns.contains(column)) {
+                        block.load(column, inflate(read(channel, position, compressedLength), length));
+                    }
+                    position += compressedLength;
+                }
+            } catch (EOFException e) {
+                Logger.warn(LogStage.SERVICE, "Truncated block at " + blockStart + ", scan stopped");
+                break;
+            }
+            if (position > size) {
+                Logger.warn(LogStage.SERVICE, "Truncated block at " + blockStart + ", scan stopped");
+                break;
+            }
+            consumer.accept(block);
+            rows += block.getRowCount();
+        }
+        return rows;
+    }
+
+    /**
+     * Length of the file up to the end of its last complete block, without decompressing any column
+     *
+     * @param channel - open entity column file.
+     * @return file length when the file has no truncated tail
+     * @throws IOException when a block is corrupt
+     */
+    static long completeLength(FileChannel channel) throws IOException {
+        long position = 8;
+        long size = channel.size();
+        while (position < size) {
+            long blockEnd;
+            try {
+                ByteBuffer blockHeader = readBlockHeader(channel, position);
+                blockHeader.getInt();
+                int columnCount = blockHeader.getInt();
+                ByteBuffer columnHeader = read(channel, position + 12, columnCount * 9);
+                blockEnd = position + 12 + columnCount * 9;
+                for (int i = 0; i < columnCount; i++) {
+                    columnHeader.get();
+                    columnHeader.getInt();
+                    blockEnd += columnHeader.getInt();
+                }
+            } catch (EOFException e) {
+                break;
+            }
+            if (blockEnd > size) {
+                break;
+            }
+            position = blockEnd;
+        }
+        return Math.min(position, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static ByteBuffer readBlockHeader(FileChannel channel, long position) throws IOException {
+        ByteBuffer blockHeader = read(channel, position, 12);
+        if (blockHeader.getInt() != EntityColumnWriter.BLOCK_MAGIC) {
+            throw new IOException("Corrupt block at " + position);
+        }
+        return blockHeader;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer inflate(ByteBuffer compressed, int length) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array(), 0, compressed.limit());
+            byte[] data = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int inflated = inflater.inflate(data, offset, length - offset);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += inflated;
+            }
+            if (offset != length) {
+                throw new IOException("Corrupt column data");
+            }
+            return ByteBuffer.wrap(data);
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Decoded columns of one block
+     */
+    public static class Block {
+        private final int rowCount;
+        private final Map<EntityColumn, String[]> stringColumns = new EnumMap<>(EntityColumn.class);
+        private final Map<EntityColumn, float[]> floatColumns = new EnumMap<>(EntityColumn.class);
+
+        Block(int rowCount) {
+            this.rowCount = rowCount;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public String getString(EntityColumn column, int row) {
+            String[] values = stringColumns.get(column);
+            if (values == null) {
+                throw new IllegalArgumentException("Column not loaded: " + column);
+            }
+            return values[row];
+        }
+
+        public float getFloat(EntityColumn column, int row) {
+            float[] values = floatColumns.get(column);
+            if (values == null) {
+                throw new IllegalArgumentException("Column not loaded: " + column);
+            }
+            return values[row];
+        }
+
+        private void load(EntityColumn column, ByteBuffer data) {
+            if (!column.isStringColumn()) {
+                float[] values = new float[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    values[row] = data.getFloat();
+                }
+                floatColumns.put(column, values);
+                return;
+            }
+            String[] dictionary = new String[readVarInt(data)];
+            for (int i = 0; i < dictionary.length; i++) {
+                byte[] bytes = new byte[readVarInt(data)];
+                data.get(bytes);
+                dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            String[] values = new String[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                int index = readVarInt(data);
+                values[row] = (index == 0) ? null : dictionary[index - 1];
+            }
+            stringColumns.put(column, values);
+        }
+
+        private static int readVarInt(ByteBuffer data) {
+            int value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data.get();
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+    }
+}
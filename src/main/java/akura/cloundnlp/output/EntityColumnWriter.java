@@ -0,0 +1,226 @@
+package akura.cloundnlp.output;
+
+import akura.cloundnlp.dtos.FinalEntityTagDto;
+import akura.cloundnlp.dtos.OntologyMapDto;
+import akura.utility.LogStage;
+import akura.utility.Logger;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * Append only, column oriented binary writer for extraction results.
+ * Rows are buffered and written as blocks. Every column of a block is encoded on its own, strings with a per block
+ * dictionary, and compressed separately, so readers can skip the columns they do not need.
+ *
+ * File layout: magic, version, then blocks. Each block starts with a block magic, the row count, the column count and
+ * for every column its id, uncompressed length and compressed length, followed by the compressed column data.
+ * A string column is the dictionary size, the dictionary entries (varint length and UTF-8 bytes) and one varint per row,
+ * 0 for null or the dictionary index + 1. A float column is 4 bytes per row.
+ */
+public class EntityColumnWriter implements Closeable {
+    final static int MAGIC = 0x414B4346;
+    final static int VERSION = 1;
+    final static int BLOCK_MAGIC = 0x424C4B31;
+    private final static Object FILE_LOCK = new Object();
+
+    private final Path file;
+    private final int blockRows;
+    private final List<String> reviewIds = new ArrayList<>();
+    private final List<FinalEntityTagDto> tags = new ArrayList<>();
+
+    /**
+     * Open a writer, the file is created when it does not exist and appended to otherwise.
+     * A block left incomplete by an interrupted writer is truncated, so new blocks are not written after it.
+     * A block with a bad block magic is not a torn tail, since every block is written starting with its magic, but
+     * damage to the file. Such a file is refused and left untouched rather than truncated, so the blocks after the
+     * damage can still be recovered.
+     *
+     * @param file
+     * @param blockRows - rows buffered per block.
+     * @throws IOException when the file exists and is not an entity column file or has a corrupt block
+     */
+    public EntityColumnWriter(Path file, int blockRows) throws IOException {
+        this.file = file;
+        this.blockRows = Math.max(1, blockRows);
+        synchronized (FILE_LOCK) {
+            if (!Files.exists(file) || Files.size(file) == 0) {
+                try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file.toFile(), true))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                }
+            } else {
+                try (DataInputStream input = new DataInputStream(new FileInputStream(file.toFile()))) {
+                    if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                        throw new IOException("Not an entity column file: " + file);
+                    }
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+                    long completeLength = EntityColumnReader.completeLength(channel);
+                    if (completeLength < channel.size()) {
+                        Logger.warn(LogStage.SERVICE, "Truncating " + (channel.size() - completeLength) + " bytes of an incomplete block in " + file);
+                        channel.truncate(completeLength);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the final entity tags of a review
+     *
+     * @param ontologyMapDto
+     * @throws IOException
+     */
+    public synchronized void append(OntologyMapDto ontologyMapDto) throws IOException {
+        if (ontologyMapDto.getFinalEntityTaggedList() == null) {
+            return;
+        }
+        for (FinalEntityTagDto finalEntityTagDto : ontologyMapDto.getFinalEntityTaggedList()) {
+            reviewIds.add(ontologyMapDto.getReviewId());
+            tags.add(finalEntityTagDto);
+            if (tags.size() >= blockRows) {
+                flush();
+            }
+        }
+    }
+
+    public synchronized void appendAll(Collection<OntologyMapDto> ontologyMapDtos) throws IOException {
+        for (OntologyMapDto ontologyMapDto : ontologyMapDtos) {
+            append(ontologyMapDto);
+        }
+    }
+
+    /**
+     * Write the buffered rows as one block
+     *
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        if (tags.isEmpty()) {
+            return;
+        }
+        EntityColumn[] columns = EntityColumn.values();
+        byte[][] compressedColumns = new byte[columns.length][];
+        int[] columnLengths = new int[columns.length];
+        for (EntityColumn column : columns) {
+            byte[] encoded = encode(column);
+            columnLengths[column.ordinal()] = encoded.length;
+            compressedColumns[column.ordinal()] = compress(encoded);
+        }
+
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(block);
+        output.writeInt(BLOCK_MAGIC);
+        output.writeInt(tags.size());
+        output.writeInt(columns.length);
+        for (EntityColumn column : columns) {
+            output.writeByte(column.ordinal());
+            output.writeInt(columnLengths[column.ordinal()]);
+            output.writeInt(compressedColumns[column.ordinal()].length);
+        }
+        for (byte[] compressedColumn : compressedColumns) {
+            output.write(compressedColumn);
+        }
+        output.flush();
+
+        synchronized (FILE_LOCK) {
+            try (OutputStream fileOutput = new FileOutputStream(file.toFile(), true)) {
+                block.writeTo(fileOutput);
+            }
+        }
+        reviewIds.clear();
+        tags.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+    }
+
+    private byte[] encode(EntityColumn column) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(encoded);
+        if (!column.isStringColumn()) {
+            for (FinalEntityTagDto finalEntityTagDto : tags) {
+                output.writeFloat((column == EntityColumn.SENTIMENT) ? finalEntityTagDto.getSentiment() : finalEntityTagDto.getSalience());
+            }
+            output.flush();
+            return encoded.toByteArray();
+        }
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] indexes = new int[tags.size()];
+        for (int row = 0; row < tags.size(); row++) {
+            String value = stringValue(column, row);
+            if (value != null) {
+                Integer index = dictionary.get(value);
+                if (index == null) {
+                    index = dictionary.size();
+                    dictionary.put(value, index);
+                }
+                indexes[row] = index + 1;
+            }
+        }
+        writeVarInt(output, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(output, bytes.length);
+            output.write(bytes);
+        }
+        for (int index : indexes) {
+            writeVarInt(output, index);
+        }
+        output.flush();
+        return encoded.toByteArray();
+    }
+
+    private String stringValue(EntityColumn column, int row) {
+        FinalEntityTagDto finalEntityTagDto = tags.get(row);
+        switch (column) {
+            case REVIEW_ID:
+                return reviewIds.get(row);
+            case TEXT:
+                return finalEntityTagDto.getText();
+            case CATEGORY:
+                return finalEntityTagDto.getCategory();
+            case NOUN_COMBINATION:
+                return finalEntityTagDto.getNounCombination();
+            case NOUN_COMBINATION_CATEGORY:
+                return finalEntityTagDto.getNounCombinationCategory();
+            default:
+                return null;
+        }
+    }
+
+    private static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+}
@@ -0,0 +1,67 @@
+package akura.corenlp;
+
+import akura.utility.EngineConfiguration;
+
+import java.util.Properties;
+
+/**
+ * Named annotator sets, so every call site loads only the models it needs.
+ * Profiles that parse can use the shift-reduce parser ({@link EngineConfiguration#CORENLP_SHIFT_REDUCE}), which
+ * is much faster than the PCFG parser but needs the CoreNLP English models jar, and can skip long sentences
+ * ({@link EngineConfiguration#CORENLP_PARSE_MAX_LENGTH}).
+ */
+public enum AnnotatorProfile {
+    /**
+     * Tokens and POS tags, e.g. to group words by tag
+     */
+    POS("tokenize,ssplit,pos", false),
+    /**
+     * POS tags and lemmas, e.g. for syntax tokens
+     */
+    SYNTAX("tokenize,ssplit,pos,lemma", false),
+    /**
+     * Sentiment tree of every sentence
+     */
+    SENTIMENT("tokenize,ssplit,pos,parse,sentiment", true),
+    /**
+     * Named entity mentions with the sentiment of their sentence, and lemmas
+     */
+    ENTITY_SENTIMENT("tokenize,ssplit,pos,lemma,ner,entitymentions,parse,sentiment", true),
+    /**
+     * Everything, including named entities and coreference
+     */
+    FULL("tokenize,ssplit,pos,lemma,ner,parse,dcoref", true);
+
+    private static final String SHIFT_REDUCE_MODEL = "edu/stanford/nlp/models/srparser/englishSR.ser.gz";
+
+    private final String annotators;
+    private final boolean parses;
+
+    AnnotatorProfile(String annotators, boolean parses) {
+        this.annotators = annotators;
+        this.parses = parses;
+    }
+
+    public String getAnnotators() {
+        return annotators;
+    }
+
+    /**
+     * Pipeline properties of the profile with the configured parser options
+     *
+     * @return
+     */
+    public Properties getProperties() {
+        Properties props = new Properties();
+        props.setProperty("annotators", annotators);
+        if (parses) {
+            if (EngineConfiguration.CORENLP_SHIFT_REDUCE) {
+                props.setProperty("parse.model", SHIFT_REDUCE_MODEL);
+            }
+            if (EngineConfiguration.CORENLP_PARSE_MAX_LENGTH > 0) {
+                props.setProperty("parse.maxlen", String.valueOf(EngineConfiguration.CORENLP_PARSE_MAX_LENGTH));
+            }
+        }
+        return props;
+    }
+}
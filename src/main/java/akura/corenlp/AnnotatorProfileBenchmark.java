@@ -0,0 +1,77 @@
+package akura.corenlp;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Compare load time, heap and throughput of the annotator profiles.
+ * Every profile gets its own pipeline, outside of {@link CoreNlpPipelines}, and the CoreNLP model cache is cleared
+ * between profiles, so the heap of a profile does not include models loaded for another one.
+ * Usage: AnnotatorProfileBenchmark [review text] [iterations] [profile,...]
+ * Set -Dakura.corenlp.shiftReduce=true to measure the shift-reduce parser.
+ */
+public class AnnotatorProfileBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        String reviewFile = (args.length > 0) ? args[0] : "src/main/resources/amazon-sample-review.txt";
+        int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+        AnnotatorProfile[] profiles = AnnotatorProfile.values();
+        if (args.length > 2) {
+            String[] names = args[2].split(",");
+            profiles = new AnnotatorProfile[names.length];
+            for (int i = 0; i < names.length; i++) {
+                profiles[i] = AnnotatorProfile.valueOf(names[i].trim().toUpperCase());
+            }
+        }
+
+        String review = new String(Files.readAllBytes(Paths.get(reviewFile)), StandardCharsets.UTF_8);
+        System.out.println("Review: " + review.length() + " characters, " + iterations + " iterations");
+
+        for (AnnotatorProfile profile : profiles) {
+            run(profile, review, iterations);
+        }
+    }
+
+    private static void run(AnnotatorProfile profile, String review, int iterations) {
+        long heapBefore = usedHeap();
+        long loadStart = System.nanoTime();
+        StanfordCoreNLP pipeline = new StanfordCoreNLP(profile.getProperties());
+        long loadMillis = (System.nanoTime() - loadStart) / 1000000;
+        long heapAfter = usedHeap();
+
+        int tokens = 0;
+        for (int i = 0; i < 3; i++) {
+            tokens = annotate(pipeline, review);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            annotate(pipeline, review);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%-9s load %6d ms, heap %6d MB, %8.2f docs/s, %10.1f tokens/s",
+                profile, loadMillis, (heapAfter - heapBefore) / (1024 * 1024),
+                iterations / seconds, iterations * tokens / seconds));
+        StanfordCoreNLP.clearAnnotatorPool();
+    }
+
+    private static int annotate(StanfordCoreNLP pipeline, String review) {
+        Annotation annotation = new Annotation(review);
+        pipeline.annotate(annotation);
+        return annotation.get(CoreAnnotations.TokensAnnotation.class).size();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
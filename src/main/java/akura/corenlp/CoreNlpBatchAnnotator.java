@@ -0,0 +1,96 @@
+package akura.corenlp;
+
+import akura.utility.EngineConfiguration;
+import akura.utility.Metrics;
+import akura.utility.NlpRequestExecutor;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Annotates many documents in parallel with the shared pipelines of {@link CoreNlpPipelines}.
+ * Documents are spread over {@link EngineConfiguration#CORENLP_THREADS} threads and delivered in input order.
+ * At most twice as many documents as threads are in flight, and an annotation is released once it has been
+ * delivered, so memory stays flat however large the batch is.
+ */
+public class CoreNlpBatchAnnotator {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final int THREADS = Math.max(1, EngineConfiguration.CORENLP_THREADS);
+    private static final int MAX_IN_FLIGHT = THREADS * 2;
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            THREADS,
+            runnable -> {
+                Thread thread = new Thread(runnable, "corenlp-annotate-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Annotate all texts and return the annotations in input order
+     *
+     * @param profile
+     * @param texts
+     * @return
+     */
+    public static List<Annotation> annotateAll(AnnotatorProfile profile, List<String> texts) {
+        List<Annotation> annotations = new ArrayList<>(texts.size());
+        annotateAll(profile, texts, annotations::add);
+        return annotations;
+    }
+
+    /**
+     * Annotate all texts, handing every annotation to the consumer on the calling thread as soon as it and all
+     * annotations before it are done
+     *
+     * @param profile
+     * @param texts
+     * @param consumer
+     */
+    public static void annotateAll(AnnotatorProfile profile, List<String> texts, Consumer<Annotation> consumer) {
+        StanfordCoreNLP pipeline = CoreNlpPipelines.get(profile);
+        if (texts.size() == 1) {
+            consumer.accept(annotate(pipeline, texts.get(0)));
+            return;
+        }
+        Deque<CompletableFuture<Annotation>> futures = new ArrayDeque<>(MAX_IN_FLIGHT);
+        Iterator<String> pending = texts.iterator();
+        try {
+            while (pending.hasNext() || !futures.isEmpty()) {
+                while (pending.hasNext() && futures.size() < MAX_IN_FLIGHT) {
+                    String text = pending.next();
+                    futures.addLast(CompletableFuture.supplyAsync(() -> annotate(pipeline, text), EXECUTOR));
+                }
+                consumer.accept(NlpRequestExecutor.await(futures.removeFirst()));
+            }
+        } finally {
+            for (CompletableFuture<Annotation> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static Annotation annotate(StanfordCoreNLP pipeline, String text) {
+        long startNanos = System.nanoTime();
+        Annotation annotation = new Annotation(text);
+        pipeline.annotate(annotation);
+        Metrics.recordStage("corenlpAnnotate", startNanos);
+        return annotation;
+    }
+
+    /**
+     * Stop the annotation threads. Called from the application shutdown hook.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+}
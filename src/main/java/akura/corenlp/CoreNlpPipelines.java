@@ -0,0 +1,174 @@
+package akura.corenlp;
+
+import akura.utility.EngineConfiguration;
+import akura.utility.LogStage;
+import akura.utility.Logger;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared StanfordCoreNLP pipelines, one per annotator set and options.
+ * Loading the models of a pipeline takes seconds and hundreds of MB, so every pipeline is created once, on first use
+ * or during {@link #warmUp(List)}, and reused. StanfordCoreNLP is thread safe for annotate calls.
+ */
+public class CoreNlpPipelines {
+    private static final Map<String, PipelineHolder> PIPELINES = new ConcurrentHashMap<>();
+    private static volatile boolean warm;
+
+    /**
+     * Provide the pipeline of an annotator profile, creating it on first use
+     *
+     * @param profile
+     * @return
+     */
+    public static StanfordCoreNLP get(AnnotatorProfile profile) {
+        return get(profile.getProperties());
+    }
+
+    /**
+     * Provide the pipeline of an annotator set, creating it on first use
+     *
+     * @param annotators - comma separated annotators, e.g. "tokenize, ssplit, pos".
+     * @return
+     */
+    public static StanfordCoreNLP get(String annotators) {
+        Properties props = new Properties();
+        props.setProperty("annotators", annotators);
+        return get(props);
+    }
+
+    /**
+     * Provide the pipeline of the given properties, creating it on first use
+     *
+     * @param props - must contain "annotators".
+     * @return
+     */
+    public static StanfordCoreNLP get(Properties props) {
+        return PIPELINES.computeIfAbsent(key(props), key -> new PipelineHolder(props)).get();
+    }
+
+    /**
+     * Warm up the profiles of {@link EngineConfiguration#CORENLP_WARM_UP_PROFILES} on a background thread, and the
+     * profiles of the local nlp backend when it is in use. An empty value skips the warm up.
+     */
+    public static void startWarmUp() {
+        List<AnnotatorProfile> profiles = new ArrayList<>();
+        for (String profile : EngineConfiguration.CORENLP_WARM_UP_PROFILES.split(",")) {
+            if (!profile.trim().isEmpty()) {
+                profiles.add(AnnotatorProfile.valueOf(profile.trim().toUpperCase()));
+            }
+        }
+        if (!"google".equalsIgnoreCase(EngineConfiguration.NLP_BACKEND)) {
+            for (AnnotatorProfile profile : new AnnotatorProfile[]{AnnotatorProfile.SYNTAX, AnnotatorProfile.ENTITY_SENTIMENT}) {
+                if (!profiles.contains(profile)) {
+                    profiles.add(profile);
+                }
+            }
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                warmUp(profiles);
+            } catch (RuntimeException e) {
+                Logger.error(LogStage.SERVICE, "CoreNLP warm up failed", e);
+            }
+        }, "corenlp-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Create and exercise the pipelines of the given profiles, then mark the registry as warm
+     *
+     * @param profiles
+     */
+    public static void warmUp(List<AnnotatorProfile> profiles) {
+        for (AnnotatorProfile profile : profiles) {
+            long startNanos = System.nanoTime();
+            StanfordCoreNLP pipeline = get(profile);
+            pipeline.annotate(new Annotation("The camera of this phone is great."));
+            Logger.info(LogStage.SERVICE, "CoreNLP pipeline " + profile + " ready in "
+                    + (System.nanoTime() - startNanos) / 1000000 + "ms");
+        }
+        warm = true;
+    }
+
+    /**
+     * Whether the startup warm up has finished
+     *
+     * @return
+     */
+    public static boolean isWarm() {
+        return warm;
+    }
+
+    public static List<String> getLoadedPipelines() {
+        List<String> pipelines = new ArrayList<>();
+        PIPELINES.forEach((key, holder) -> {
+            if (holder.isLoaded()) {
+                pipelines.add(key);
+            }
+        });
+        return pipelines;
+    }
+
+    /**
+     * Registry key of a pipeline: the normalized annotators, followed by the other properties in name order
+     */
+    static String key(Properties props) {
+        StringBuilder key = new StringBuilder(normalize(props.getProperty("annotators", "")));
+        for (String name : new TreeSet<>(props.stringPropertyNames())) {
+            if (!name.equals("annotators")) {
+                key.append('|').append(name).append('=').append(props.getProperty(name));
+            }
+        }
+        return key.toString();
+    }
+
+    static String normalize(String annotators) {
+        StringBuilder normalized = new StringBuilder();
+        for (String annotator : annotators.split(",")) {
+            if (!annotator.trim().isEmpty()) {
+                normalized.append(normalized.length() == 0 ? "" : ",").append(annotator.trim());
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Creates its pipeline outside of the registry map, so loading one pipeline does not block the others
+     */
+    private static class PipelineHolder {
+        private final Properties props;
+        private volatile StanfordCoreNLP pipeline;
+
+        private PipelineHolder(Properties props) {
+            this.props = new Properties();
+            this.props.putAll(props);
+        }
+
+        private StanfordCoreNLP get() {
+            StanfordCoreNLP current = pipeline;
+            if (current == null) {
+                synchronized (this) {
+                    current = pipeline;
+                    if (current == null) {
+                        current = new StanfordCoreNLP(props);
+                        pipeline = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        private boolean isLoaded() {
+            return pipeline != null;
+        }
+    }
+}
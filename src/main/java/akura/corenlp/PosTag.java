@@ -0,0 +1,57 @@
+package akura.corenlp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Penn Treebank POS tags collected by {@link TokenExtraction}
+ */
+public enum PosTag {
+    NNP("NNP"),
+    NN("NN"),
+    VBD("VBD"),
+    VBP("VBP"),
+    VB("VB"),
+    VBN("VBN"),
+    CC("CC"),
+    PRP("PRP"),
+    IN("IN"),
+    DT("DT"),
+    VBZ("VBZ"),
+    RB("RB"),
+    JJ("JJ"),
+    MD("MD"),
+    NNS("NNS"),
+    TO("TO"),
+    VBG("VBG"),
+    PRP$("PRP$"),
+    CD("CD");
+
+    private static final Map<String, PosTag> BY_TAG = new HashMap<>();
+
+    static {
+        for (PosTag posTag : values()) {
+            BY_TAG.put(posTag.tag, posTag);
+        }
+    }
+
+    private final String tag;
+
+    PosTag(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Look up a CoreNLP POS annotation
+     *
+     * @param tag
+     * @return the tag, or null when it is not collected
+     */
+    public static PosTag fromTag(String tag) {
+        return tag == null ? null : BY_TAG.get(tag);
+    }
+}
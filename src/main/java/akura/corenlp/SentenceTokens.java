@@ -0,0 +1,71 @@
+package akura.corenlp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable words of one sentence, grouped by POS tag.
+ * Only the tags that occur in the sentence have a list, each stored as a fixed size array list.
+ */
+public final class SentenceTokens {
+    private final String sentence;
+    private final Map<PosTag, List<String>> words;
+
+    private SentenceTokens(String sentence, Map<PosTag, List<String>> words) {
+        this.sentence = sentence;
+        this.words = Collections.unmodifiableMap(words);
+    }
+
+    public String getSentence() {
+        return sentence;
+    }
+
+    /**
+     * Words of the sentence with the given tag, in sentence order
+     *
+     * @param posTag
+     * @return empty list when the tag does not occur
+     */
+    public List<String> getWords(PosTag posTag) {
+        List<String> tagWords = words.get(posTag);
+        return tagWords == null ? Collections.<String>emptyList() : tagWords;
+    }
+
+    public Map<PosTag, List<String>> getWords() {
+        return words;
+    }
+
+    static Builder builder(String sentence) {
+        return new Builder(sentence);
+    }
+
+    /**
+     * Collects the words of one sentence, not thread safe
+     */
+    static class Builder {
+        private final String sentence;
+        private final EnumMap<PosTag, List<String>> words = new EnumMap<>(PosTag.class);
+
+        private Builder(String sentence) {
+            this.sentence = sentence;
+        }
+
+        Builder add(PosTag posTag, String word) {
+            words.computeIfAbsent(posTag, tag -> new ArrayList<>(4)).add(word);
+            return this;
+        }
+
+        SentenceTokens build() {
+            EnumMap<PosTag, List<String>> compactWords = new EnumMap<>(PosTag.class);
+            for (Map.Entry<PosTag, List<String>> entry : words.entrySet()) {
+                compactWords.put(entry.getKey(), Collections.unmodifiableList(
+                        Arrays.asList(entry.getValue().toArray(new String[entry.getValue().size()]))));
+            }
+            return new SentenceTokens(sentence, compactWords);
+        }
+    }
+}
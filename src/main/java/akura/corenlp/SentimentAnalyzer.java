@@ -4,58 +4,57 @@ import edu.stanford.nlp.ie.machinereading.structure.MachineReadingAnnotations;
 import edu.stanford.nlp.ie.machinereading.structure.RelationMention;
 import edu.stanford.nlp.ling.CoreAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations;
-import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
-import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
-import edu.stanford.nlp.sentiment.SentimentCoreAnnotations.SentimentAnnotatedTree;
 import edu.stanford.nlp.simple.Sentence;
-import edu.stanford.nlp.trees.Tree;
-import edu.stanford.nlp.util.CoreMap;
 import gate.*;
 import gate.creole.ANNIEConstants;
 import gate.util.GateException;
 import gate.util.persistence.PersistenceManager;
-import org.ejml.simple.SimpleMatrix;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Properties;
 
 /**
  * Created by Nipuna H Herath on 7/9/17.
  */
 public class SentimentAnalyzer {
-    static StanfordCoreNLP pipeline;
-
+    /**
+     * Load the sentiment pipeline ahead of the first request
+     */
     public static void init() {
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner,parse, sentiment, relation");
-        pipeline = new StanfordCoreNLP(props);
+        CoreNlpPipelines.get(AnnotatorProfile.SENTIMENT);
     }
 
+    /**
+     * Sentiment of a text over all its sentences, see {@link SentimentEngine}
+     *
+     * @param tweet
+     * @return expected sentiment class from 0, very negative, to 4, very positive. 0 for empty texts.
+     */
     public static double findSentiment(String tweet) {
-        double mainSentiment = 0;
         if (tweet != null && tweet.length() > 0) {
-            double longest = 0;
-            Annotation annotation = pipeline.process(tweet);
-
-            for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
-                Tree tree = sentence.get(SentimentAnnotatedTree.class);
-                System.out.println(tree);
-                double sentiment = RNNCoreAnnotations.getPredictedClass(tree);
-                SimpleMatrix sentiment_new = RNNCoreAnnotations.getPredictions(tree);
-                String partText = sentence.toString();
+            return SentimentEngine.score(tweet).getExpectedClass();
+        }
+        return 0;
+    }
 
-                if (partText.length() > longest) {
-                    mainSentiment = sentiment;
-                    longest = partText.length();
-                }
-            }
+    /**
+     * Score many texts in parallel, see {@link CoreNlpBatchAnnotator}
+     *
+     * @param texts
+     * @return sentiment of each text, in input order
+     */
+    public static List<Double> findSentiments(List<String> texts) {
+        List<SentimentScore> scores = SentimentEngine.scoreAll(texts);
+        List<Double> sentiments = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            sentiments.add(text != null && text.length() > 0 ? scores.get(i).getExpectedClass() : 0);
         }
-        return mainSentiment;
+        return sentiments;
     }
 
     public static void main(String[] args) throws GateException, IOException {
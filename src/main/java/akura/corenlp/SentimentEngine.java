@@ -0,0 +1,122 @@
+package akura.corenlp;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.sentiment.SentimentCoreAnnotations.SentimentAnnotatedTree;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.util.CoreMap;
+import org.ejml.simple.SimpleMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Document sentiment as the class distribution of all its sentences, weighted by sentence length.
+ * Every text is annotated once with the {@link AnnotatorProfile#SENTIMENT} pipeline, and the class probabilities
+ * are read from the root of each sentence tree.
+ */
+public class SentimentEngine {
+
+    /**
+     * Score a text
+     *
+     * @param text
+     * @return {@link SentimentScore#NEUTRAL} for empty texts
+     */
+    public static SentimentScore score(String text) {
+        if (text == null || text.isEmpty()) {
+            return SentimentScore.NEUTRAL;
+        }
+        Annotation annotation = new Annotation(text);
+        CoreNlpPipelines.get(AnnotatorProfile.SENTIMENT).annotate(annotation);
+        return scoreDocument(annotation);
+    }
+
+    /**
+     * Score many texts in parallel, see {@link CoreNlpBatchAnnotator}
+     *
+     * @param texts
+     * @return score of each text, in input order
+     */
+    public static List<SentimentScore> scoreAll(List<String> texts) {
+        List<String> nonEmptyTexts = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            if (text != null && !text.isEmpty()) {
+                nonEmptyTexts.add(text);
+            }
+        }
+        List<SentimentScore> nonEmptyScores = new ArrayList<>(nonEmptyTexts.size());
+        CoreNlpBatchAnnotator.annotateAll(AnnotatorProfile.SENTIMENT, nonEmptyTexts, annotation -> nonEmptyScores.add(scoreDocument(annotation)));
+        List<SentimentScore> scores = new ArrayList<>(texts.size());
+        int index = 0;
+        for (String text : texts) {
+            scores.add(text != null && !text.isEmpty() ? nonEmptyScores.get(index++) : SentimentScore.NEUTRAL);
+        }
+        return scores;
+    }
+
+    /**
+     * Score an annotated document
+     *
+     * @param annotation - annotated with the sentiment annotator.
+     * @return
+     */
+    public static SentimentScore scoreDocument(Annotation annotation) {
+        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        if (sentences == null) {
+            return SentimentScore.NEUTRAL;
+        }
+        double[] probabilities = null;
+        long totalLength = 0;
+        int sentenceCount = 0;
+        for (CoreMap sentence : sentences) {
+            SimpleMatrix predictions = predictions(sentence);
+            if (predictions == null) {
+                continue;
+            }
+            int length = sentence.get(CoreAnnotations.TextAnnotation.class).length();
+            if (probabilities == null) {
+                probabilities = new double[predictions.getNumElements()];
+            }
+            for (int i = 0; i < probabilities.length; i++) {
+                probabilities[i] += predictions.get(i) * length;
+            }
+            totalLength += length;
+            sentenceCount++;
+        }
+        if (probabilities == null || totalLength == 0) {
+            return SentimentScore.NEUTRAL;
+        }
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] /= totalLength;
+        }
+        return new SentimentScore(probabilities, sentenceCount);
+    }
+
+    /**
+     * Score a single annotated sentence
+     *
+     * @param sentence
+     * @return {@link SentimentScore#NEUTRAL} when the sentence has no sentiment tree
+     */
+    public static SentimentScore scoreSentence(CoreMap sentence) {
+        SimpleMatrix predictions = predictions(sentence);
+        if (predictions == null) {
+            return SentimentScore.NEUTRAL;
+        }
+        double[] probabilities = new double[predictions.getNumElements()];
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] = predictions.get(i);
+        }
+        return new SentimentScore(probabilities, 1);
+    }
+
+    /**
+     * Class probabilities stored on the root of the sentence tree, read without copying
+     */
+    private static SimpleMatrix predictions(CoreMap sentence) {
+        Tree tree = sentence.get(SentimentAnnotatedTree.class);
+        return tree == null ? null : RNNCoreAnnotations.getPredictions(tree);
+    }
+}
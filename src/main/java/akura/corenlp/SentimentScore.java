@@ -0,0 +1,72 @@
+package akura.corenlp;
+
+import java.util.Arrays;
+
+/**
+ * Sentiment class distribution of a text, from very negative (class 0) to very positive (class 4)
+ */
+public final class SentimentScore {
+    public static final SentimentScore NEUTRAL = new SentimentScore(new double[]{0, 0, 1, 0, 0}, 0);
+
+    private final double[] probabilities;
+    private final int sentenceCount;
+
+    SentimentScore(double[] probabilities, int sentenceCount) {
+        this.probabilities = probabilities;
+        this.sentenceCount = sentenceCount;
+    }
+
+    /**
+     * Probability of each sentiment class
+     *
+     * @return a copy, indexed by class
+     */
+    public double[] getProbabilities() {
+        return Arrays.copyOf(probabilities, probabilities.length);
+    }
+
+    public double getProbability(int sentimentClass) {
+        return probabilities[sentimentClass];
+    }
+
+    /**
+     * Most probable class
+     *
+     * @return
+     */
+    public int getPredictedClass() {
+        int predictedClass = 0;
+        for (int i = 1; i < probabilities.length; i++) {
+            if (probabilities[i] > probabilities[predictedClass]) {
+                predictedClass = i;
+            }
+        }
+        return predictedClass;
+    }
+
+    /**
+     * Expected class, on the same 0 to 4 scale as the predicted class
+     *
+     * @return
+     */
+    public double getExpectedClass() {
+        double expectedClass = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            expectedClass += i * probabilities[i];
+        }
+        return expectedClass;
+    }
+
+    /**
+     * Expected class scaled to [-1, 1], like the Google NLP sentiment score
+     *
+     * @return
+     */
+    public double getScore() {
+        return probabilities.length < 2 ? 0 : 2 * getExpectedClass() / (probabilities.length - 1) - 1;
+    }
+
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+}
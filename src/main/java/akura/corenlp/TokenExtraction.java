@@ -5,8 +5,8 @@ import java.net.URL;
 import java.util.*;
 
 import akura.corenlp.models.*;
-import com.google.gson.Gson;
-import edu.stanford.nlp.ling.CoreAnnotations.NamedEntityTagAnnotation;
+import akura.utility.LogStage;
+import akura.utility.Logger;
 import edu.stanford.nlp.ling.CoreAnnotations.PartOfSpeechAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TextAnnotation;
@@ -39,140 +39,46 @@ public class TokenExtraction {
 	private final static String[] DEVICE_LIST = {"samsung galaxy s8", "iphone 7", "samsung galaxy s5", "iphone 7s", "samsung galaxy s6", "iphone 6s"};
 	private final static String[] FEATURE_LIST = {"camera", "performance", "bluetooth", "display"};
 
-	private final static String NNP = "NNP";
-	private final static String NN = "NN";
-	private final static String VBD = "VBD";
-	private final static String VBP = "VBP";
-	private final static String VB = "VB";
-	private final static String VBN = "VBN";
-	private final static String CC = "CC";
-	private final static String PRP = "PRP";
-	private final static String IN = "IN";
-	
-	private final static String DT = "DT";
-	private final static String VBZ = "VBZ";
-	private final static String RB = "RB";
-	private final static String JJ = "JJ";
-	private final static String MD = "MD";
-	private final static String NNS = "NNS";
-	private final static String TO = "TO";
-	private final static String VBG = "VBG";
-	private final static String PRP$ = "PRP$";
-	private final static String CD = "CD";
-	
-	
-	private static Map<String, Map<String, List<String>>> sentenceMap;
-	private static Map<String, List<String>> wordMap;
-	private static List<String> nnpList, nnList, vbdList, vbpList, vbList, vbnList, ccList, prpList, inList, dtList, vbzList, rbList, jjList, mdList, nnsList , toList, vbgList, prp$List, cdList;
-	
-	static Properties props = new Properties();
-	static Annotation document;
-	public static Map<String, Map<String, List<String>>> extractTokens(String paraphrase){
-	    props.put("annotators", "tokenize, ssplit, pos, lemma, ner, parse, dcoref");
-	    StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
-	    document = new Annotation(paraphrase);
+	/**
+	 * Group the words of every sentence by POS tag. Safe to call from several threads.
+	 *
+	 * @param paraphrase
+	 * @return immutable tokens of each sentence, in text order
+	 */
+	public static List<SentenceTokens> extractTokens(String paraphrase){
+	    StanfordCoreNLP pipeline = CoreNlpPipelines.get(AnnotatorProfile.POS);
+	    Annotation document = new Annotation(paraphrase);
 	    pipeline.annotate(document);
+	    return toSentenceTokens(document);
+	}
+
+	/**
+	 * Extract the tokens of many paraphrases in parallel, see {@link CoreNlpBatchAnnotator}
+	 *
+	 * @param paraphrases
+	 * @return tokens of each paraphrase, in input order
+	 */
+	public static List<List<SentenceTokens>> extractTokens(List<String> paraphrases){
+	    List<List<SentenceTokens>> tokens = new ArrayList<>(paraphrases.size());
+	    CoreNlpBatchAnnotator.annotateAll(AnnotatorProfile.POS, paraphrases, document -> tokens.add(toSentenceTokens(document)));
+	    return tokens;
+	}
+
+	private static List<SentenceTokens> toSentenceTokens(Annotation document){
 	    List<CoreMap> sentences = document.get(SentencesAnnotation.class);
-	    
+	    List<SentenceTokens> sentenceTokens = new ArrayList<>(sentences.size());
 	    for(CoreMap sentence : sentences){
-	    	wordMap = new HashMap<>();
-	    	nnpList = new LinkedList<>();
-	    	nnList = new LinkedList<>();
-	    	vbdList = new LinkedList<>();
-	    	vbpList = new LinkedList<>();
-	    	vbList = new LinkedList<>();
-	    	vbnList = new LinkedList<>();
-	    	ccList = new LinkedList<>();
-	    	prpList = new LinkedList<>();
-	    	inList = new LinkedList<>();
-	    	dtList = new LinkedList<>();
-	    	vbzList = new LinkedList<>();
-	    	rbList = new LinkedList<>();
-	    	jjList = new LinkedList<>();
-	    	mdList = new LinkedList<>();
-	    	nnsList = new LinkedList<>();
-	    	toList = new LinkedList<>();
-	    	vbgList = new LinkedList<>();
-	    	prp$List = new LinkedList<>();
-	    	cdList = new LinkedList<>();
+	    	SentenceTokens.Builder builder = SentenceTokens.builder(sentence.toString());
 	    	for(CoreLabel token: sentence.get(TokensAnnotation.class)){
-	//	    	System.out.println(sentence.toString());
-		    	String word = token.get(TextAnnotation.class);
-		        // this is the POS tag of the token
-		        String pos = token.get(PartOfSpeechAnnotation.class);
-		        // this is the NER label of the token
-		        String ne = token.get(NamedEntityTagAnnotation.class);
-		        
-		        storeExtractedData(pos, word);
+	    		// this is the POS tag of the token
+	    		PosTag posTag = PosTag.fromTag(token.get(PartOfSpeechAnnotation.class));
+	    		if (posTag != null) {
+	    			builder.add(posTag, token.get(TextAnnotation.class));
+	    		}
 	    	}
-	    	
-	    	wordMap.put(NNP, nnpList);
-	    	wordMap.put(NN, nnList);
-	    	wordMap.put(VBD, vbdList);
-	    	wordMap.put(VBP, vbpList);
-	    	wordMap.put(VB, vbList);
-	    	wordMap.put(VBN, vbnList);
-	    	wordMap.put(CC, ccList);
-	    	wordMap.put(PRP, prpList);
-	    	wordMap.put(IN, inList);
-	    	wordMap.put(DT, dtList);
-	    	wordMap.put(VBZ, vbzList);
-	    	wordMap.put(RB, rbList);
-	    	wordMap.put(JJ, jjList);
-	    	wordMap.put(MD, mdList);
-	    	wordMap.put(NNS, nnsList);
-	    	wordMap.put(TO, toList);
-	    	wordMap.put(VBG, vbgList);
-	    	wordMap.put(PRP$, prp$List);
-	    	wordMap.put(CD, cdList);
-	    	
-	    	sentenceMap.put(sentence.toString(), wordMap);
+	    	sentenceTokens.add(builder.build());
 	    }
-	    return sentenceMap;
-	}
-	
-	private static void storeExtractedData(String pos, String word){
-		switch (pos){
-			case "NNP":nnpList.add(word);
-			break;
-			case "NN":nnList.add(word);
-			break;
-			case "VBD":vbdList.add(word);
-			break;
-			case "VBP":vbpList.add(word);
-			break;
-			case "VB":vbList.add(word);
-			break;
-			case "VBN":vbnList.add(word);
-			break;
-			case "CC":ccList.add(word);
-			break;
-			case "PRP":prpList.add(word);
-			break;
-			case "IN":inList.add(word);
-			break;
-			case "DT":dtList.add(word);
-			break;
-			case "VBZ":vbzList.add(word);
-			break;
-			case "RB":rbList.add(word);
-			break;
-			case "JJ":jjList.add(word);
-			break;
-			case "MD":mdList.add(word);
-			break;
-			case "NNS":nnsList.add(word);
-			break;
-			case "TO":toList.add(word);
-			break;
-			case "VBG":vbgList.add(word);
-			break;
-			case "PRP$":prp$List.add(word);
-			break;
-			case "CD":cdList.add(word);
-			break;
-			default:System.out.println();
-		}
+	    return Collections.unmodifiableList(sentenceTokens);
 	}
 
 	public static double generateSingleSentenceScore(ArrayList<JSONObject> jsonObjects) throws JSONException {
@@ -187,6 +93,23 @@ public class TokenExtraction {
 
 		Map<String, String> options;
 
+		// annotate all comments and conjunction halves in batches up front instead of one at a time in the loop below
+		List<String> comments = new ArrayList<>(jsonObjects.size());
+		List<String> conjunctionHalves = new ArrayList<>();
+		for (JSONObject jsonObject : jsonObjects) {
+			String comment = jsonObject.get("reviewContent").toString();
+			comments.add(comment);
+			for (String sentence : comment.split("\\.")) {
+				for (String conjunction : CONJUNCTIONS) {
+					if (sentence.contains(conjunction)) {
+						Collections.addAll(conjunctionHalves, sentence.split(conjunction));
+					}
+				}
+			}
+		}
+		Iterator<Double> commentSentiments = SentimentAnalyzer.findSentiments(comments).iterator();
+		Iterator<List<SentenceTokens>> conjunctionTokens = extractTokens(conjunctionHalves).iterator();
+
 		for (JSONObject jsonObject : jsonObjects) {
 			options = new HashMap<>();
 
@@ -200,14 +123,11 @@ public class TokenExtraction {
 			options.put("url", jsonObject.get("url").toString());
 			reviewInfoDto.setProperty(options);
 
-			double commentSentiment = 0.0;
-			if (reviewInfoDto.getComment()!=null && reviewInfoDto.getComment() != "") {
-				commentSentiment = SentimentAnalyzer.findSentiment(reviewInfoDto.getComment());
-				System.out.println("Score : " + commentSentiment);
-			}
+			double commentSentiment = commentSentiments.next();
+			Logger.debug(LogStage.SENTENCE_ANALYSIS, () -> "Score : " + commentSentiment);
 
 			ontologyDto.setReviewInfo(reviewInfoDto);
-			System.out.println(new Gson().toJson(ontologyDto));
+			Logger.debugJson(LogStage.SENTENCE_ANALYSIS, "Ontology", ontologyDto);
 			//entity understanding part
 			String[] sentenceArray = (reviewInfoDto.getComment()!=null?reviewInfoDto.getComment().split("\\."):null);
 			String[] conjuncArray;
@@ -227,11 +147,10 @@ public class TokenExtraction {
 						for (int y = 0; y < conjuncArray.length; y++) {//conjunction
 							FeatureDto featureDto = new FeatureDto();
 							relationshipDto = new RelationshipDto();
-							sentenceMap = new HashMap<>();
 							String conjunction = CONJUNCTIONS[x];
 							//have to set a score to the conjunction word----> -10 - 0 - +10
 
-							List<String>[] entityModel = getMatchedEntity(extractTokens(conjuncArray[y]), x, y);
+							List<String>[] entityModel = getMatchedEntity(conjunctionTokens.next(), x, y);
 							entityModelList.add(entityModel);
 							//if y==1 it means left from the conjunction & y==2 right from the conjunction
 							if (y == 0) {
@@ -282,14 +201,15 @@ public class TokenExtraction {
 		return 0;
 	}
 
-	private static List<String>[] getMatchedEntity(Map<String, Map<String, List<String>>> extractedTokenMap, int sentenceCount, int pos){
+	private static List<String>[] getMatchedEntity(List<SentenceTokens> extractedTokens, int sentenceCount, int pos){
 		List<String> entityList = new LinkedList<>();
 		List<String> featureList = new LinkedList<>();
 		RelationshipDto relationshipDto = new RelationshipDto();
-		for(Map.Entry<String, Map<String, List<String>>> entry: sentenceMap.entrySet()){
-			System.out.println("Sentence : "+entry.getKey());
-			if(findDevices(entry.getKey()) != null){
-				entityList.add(findDevices(entry.getKey()));
+		for(SentenceTokens sentenceTokens: extractedTokens){
+			String sentence = sentenceTokens.getSentence();
+			Logger.debug(LogStage.TOKENIZE, () -> "Sentence : " + sentence);
+			if(findDevices(sentence) != null){
+				entityList.add(findDevices(sentence));
 				if (sentenceCount == 0 && pos == 0){
 					relationshipDto.setType("Main Entity");
 					relationshipDto.setEntity_1(entityList.get(0));
@@ -297,11 +217,11 @@ public class TokenExtraction {
 				} else {
 
 				}
-				if (findFeatures(entry.getKey()) != null){
-					featureList.add(findFeatures(entry.getKey()));
+				if (findFeatures(sentence) != null){
+					featureList.add(findFeatures(sentence));
 				}
 			}
-//			for(Map.Entry<String, List<String>> inner : entry.getValue().entrySet()){
+//			for(Map.Entry<PosTag, List<String>> inner : sentenceTokens.getWords().entrySet()){
 ////				System.out.println(inner.getKey()+" => "+inner.getValue());
 //				for (String individualValue : inner.getValue()){
 //					for (int d = 0; d < DEVICE_LIST.length; d++){
@@ -312,7 +232,6 @@ public class TokenExtraction {
 //					}
 //				}
 //			}
-			System.out.println();
 		}
 		return new List[]{(entityList.isEmpty())?null: entityList, (featureList.isEmpty())?null: featureList};
 	}
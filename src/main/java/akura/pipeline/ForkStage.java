@@ -0,0 +1,47 @@
+package akura.pipeline;
+
+/**
+ * Two stages on the same input whose results are combined, see {@link Stage#fork(Stage, Stage, Stage.Combiner)}.
+ * A pipeline runs both branches concurrently, each on the executor of its own name.
+ *
+ * @param <I> input type
+ * @param <A> output type of the first branch
+ * @param <B> output type of the second branch
+ * @param <R> combined output type
+ */
+class ForkStage<I, A, B, R> implements Stage<I, R> {
+    private final Stage<I, A> first;
+    private final Stage<I, B> second;
+    private final Combiner<I, A, B, R> combiner;
+
+    ForkStage(Stage<I, A> first, Stage<I, B> second, Combiner<I, A, B, R> combiner) {
+        this.first = first;
+        this.second = second;
+        this.combiner = combiner;
+    }
+
+    Stage<I, A> getFirst() {
+        return first;
+    }
+
+    Stage<I, B> getSecond() {
+        return second;
+    }
+
+    R combine(I input, A firstResult, B secondResult) throws Exception {
+        return combiner.combine(input, firstResult, secondResult);
+    }
+
+    @Override
+    public String getName() {
+        return first.getName() + "+" + second.getName();
+    }
+
+    /**
+     * Run both branches one after the other on the calling thread
+     */
+    @Override
+    public R process(I input) throws Exception {
+        return combine(input, first.process(input), second.process(input));
+    }
+}
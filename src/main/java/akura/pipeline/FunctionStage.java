@@ -0,0 +1,34 @@
+package akura.pipeline;
+
+/**
+ * Stage backed by a function, see {@link Stage#of(String, Stage.StageFunction)}
+ *
+ * @param <I> input type
+ * @param <O> output type
+ */
+class FunctionStage<I, O> implements Stage<I, O> {
+    private final String name;
+    private final boolean remote;
+    private final StageFunction<I, O> function;
+
+    FunctionStage(String name, boolean remote, StageFunction<I, O> function) {
+        this.name = name;
+        this.remote = remote;
+        this.function = function;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public O process(I input) throws Exception {
+        return function.apply(input);
+    }
+
+    @Override
+    public boolean isRemote() {
+        return remote;
+    }
+}
@@ -0,0 +1,190 @@
+package akura.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Immutable chain of stages, every stage runs on the executor of its name.
+ * Two independent stages can run concurrently with {@link #fork(Stage, Stage, Stage.Combiner)}. Pipelines are cheap to build, so a request can use its own ordering, and {@link #without(Stage)} and
+ * {@link #replace(Stage, Stage)} derive a pipeline with a stage skipped or swapped.
+ *
+ * @param <I> input type
+ * @param <O> output type
+ */
+public class Pipeline<I, O> {
+    private final List<Stage<?, ?>> stages;
+
+    private Pipeline(List<Stage<?, ?>> stages) {
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Start an empty pipeline, which returns its input
+     *
+     * @param <I>
+     * @return
+     */
+    public static <I> Pipeline<I, I> start() {
+        return new Pipeline<>(new ArrayList<>());
+    }
+
+    /**
+     * Start a pipeline with its first stage
+     *
+     * @param stage
+     * @param <I>
+     * @param <O>
+     * @return
+     */
+    public static <I, O> Pipeline<I, O> of(Stage<I, O> stage) {
+        return Pipeline.<I>start().then(stage);
+    }
+
+    /**
+     * Append a stage
+     *
+     * @param stage
+     * @param <R>
+     * @return
+     */
+    public <R> Pipeline<I, R> then(Stage<O, R> stage) {
+        List<Stage<?, ?>> newStages = new ArrayList<>(stages);
+        newStages.add(stage);
+        return new Pipeline<>(newStages);
+    }
+
+    /**
+     * Append two stages that run concurrently on the same input, and combine their results
+     *
+     * @param first
+     * @param second
+     * @param combiner - runs on the thread that completes the later stage.
+     * @param <A>
+     * @param <B>
+     * @param <R>
+     * @return
+     */
+    public <A, B, R> Pipeline<I, R> fork(Stage<O, A> first, Stage<O, B> second, Stage.Combiner<O, A, B, R> combiner) {
+        return then(Stage.fork(first, second, combiner));
+    }
+
+    /**
+     * Derive a pipeline without a stage. Only stages whose output type equals their input type can be skipped.
+     *
+     * @param stage - stage of this pipeline.
+     * @param <T>
+     * @return
+     * @throws IllegalArgumentException when the stage is not part of this pipeline
+     */
+    public <T> Pipeline<I, O> without(Stage<T, T> stage) {
+        List<Stage<?, ?>> newStages = new ArrayList<>(stages);
+        if (!newStages.remove(stage)) {
+            throw new IllegalArgumentException("Stage not in pipeline: " + stage.getName());
+        }
+        return new Pipeline<>(newStages);
+    }
+
+    /**
+     * Derive a pipeline with a stage swapped for another stage with the same types
+     *
+     * @param existing    - stage of this pipeline.
+     * @param replacement
+     * @param <X>
+     * @param <Y>
+     * @return
+     * @throws IllegalArgumentException when the existing stage is not part of this pipeline
+     */
+    public <X, Y> Pipeline<I, O> replace(Stage<X, Y> existing, Stage<X, Y> replacement) {
+        List<Stage<?, ?>> newStages = new ArrayList<>(stages);
+        int index = newStages.indexOf(existing);
+        if (index < 0) {
+            throw new IllegalArgumentException("Stage not in pipeline: " + existing.getName());
+        }
+        newStages.set(index, replacement);
+        return new Pipeline<>(newStages);
+    }
+
+    public List<String> getStageNames() {
+        List<String> stageNames = new ArrayList<>(stages.size());
+        for (Stage<?, ?> stage : stages) {
+            if (stage instanceof ForkStage) {
+                stageNames.add(((ForkStage<?, ?, ?, ?>) stage).getFirst().getName());
+                stageNames.add(((ForkStage<?, ?, ?, ?>) stage).getSecond().getName());
+            } else {
+                stageNames.add(stage.getName());
+            }
+        }
+        return stageNames;
+    }
+
+    /**
+     * Run the pipeline asynchronously
+     *
+     * @param input
+     * @return future output, completed with a {@link StageException} when a stage failed
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<O> execute(I input) {
+        CompletableFuture<Object> future = CompletableFuture.completedFuture(input);
+        for (Stage<?, ?> stage : stages) {
+            future = future.thenCompose(value -> submit((Stage<Object, Object>) stage, value));
+        }
+        return (CompletableFuture<O>) future;
+    }
+
+    /**
+     * Run the pipeline and wait for its output
+     *
+     * @param input
+     * @return
+     * @throws StageException when a stage failed
+     */
+    public O run(I input) throws StageException {
+        try {
+            return execute(input).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the pipeline");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StageException) {
+                throw (StageException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new StageException("pipeline", cause);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Object> submit(Stage<Object, Object> stage, Object input) {
+        if (stage instanceof ForkStage) {
+            ForkStage<Object, Object, Object, Object> fork = (ForkStage<Object, Object, Object, Object>) stage;
+            return submit(fork.getFirst(), input).thenCombine(submit(fork.getSecond(), input), (first, second) -> {
+                try {
+                    return fork.combine(input, first, second);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(new StageException(fork.getName(), e));
+                }
+            });
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return stage.process(input);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(new StageException(stage.getName(), e));
+            }
+        }, StageExecutors.forStage(stage));
+    }
+}
@@ -0,0 +1,78 @@
+package akura.pipeline;
+
+/**
+ * A named step of a {@link Pipeline} with a typed input and output.
+ * Stages with the same name share one executor, see {@link StageExecutors}. Stages which mostly wait on remote
+ * requests are created with {@link #remote(String, StageFunction)} and get an executor sized for the request concurrency.
+ *
+ * @param <I> input type
+ * @param <O> output type
+ */
+public interface Stage<I, O> {
+
+    String getName();
+
+    O process(I input) throws Exception;
+
+    /**
+     * Whether the stage mostly waits on remote requests rather than using the cpu
+     *
+     * @return
+     */
+    default boolean isRemote() {
+        return false;
+    }
+
+    /**
+     * Create a stage from a function
+     *
+     * @param name     - stage name, also the name of its executor.
+     * @param function
+     * @param <I>
+     * @param <O>
+     * @return
+     */
+    static <I, O> Stage<I, O> of(String name, StageFunction<I, O> function) {
+        return new FunctionStage<>(name, false, function);
+    }
+
+    /**
+     * Create a stage from a function which blocks on remote requests
+     *
+     * @param name     - stage name, also the name of its executor.
+     * @param function
+     * @param <I>
+     * @param <O>
+     * @return
+     */
+    static <I, O> Stage<I, O> remote(String name, StageFunction<I, O> function) {
+        return new FunctionStage<>(name, true, function);
+    }
+
+    /**
+     * Create a stage which runs two stages on the same input and combines their results.
+     * In a pipeline both stages run concurrently, each on the executor of its own name.
+     *
+     * @param first
+     * @param second
+     * @param combiner - runs on the thread that completes the later stage.
+     * @param <I>
+     * @param <A>
+     * @param <B>
+     * @param <R>
+     * @return
+     */
+    static <I, A, B, R> Stage<I, R> fork(Stage<I, A> first, Stage<I, B> second, Combiner<I, A, B, R> combiner) {
+        return new ForkStage<>(first, second, combiner);
+    }
+
+    @FunctionalInterface
+    interface StageFunction<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface Combiner<I, A, B, R> {
+        R combine(I input, A first, B second) throws Exception;
+    }
+}
@@ -0,0 +1,19 @@
+package akura.pipeline;
+
+import java.io.IOException;
+
+/**
+ * Failure of a pipeline stage
+ */
+public class StageException extends IOException {
+    private final String stageName;
+
+    public StageException(String stageName, Throwable cause) {
+        super("Stage " + stageName + " failed: " + cause.getMessage(), cause);
+        this.stageName = stageName;
+    }
+
+    public String getStageName() {
+        return stageName;
+    }
+}
@@ -0,0 +1,59 @@
+package akura.pipeline;
+
+import akura.utility.EngineConfiguration;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One bounded thread pool per stage name, created on first use.
+ * Cpu bound stages get {@link EngineConfiguration#STAGE_THREADS} threads. Remote stages spend their time waiting on
+ * requests and get {@link EngineConfiguration#REMOTE_STAGE_THREADS}, so they never hold fewer requests in flight than
+ * the callers submitting to them. Queues hold {@link EngineConfiguration#STAGE_QUEUE_SIZE} tasks.
+ * Sizes can be set per stage, e.g. -Dakura.pipeline.stage.sentenceSyntaxAnalysis.threads=4
+ * When a stage queue is full the submitting thread runs the stage itself, which slows down the upstream stage.
+ */
+public class StageExecutors {
+    private static final Map<String, ThreadPoolExecutor> EXECUTORS = new ConcurrentHashMap<>();
+
+    /**
+     * Provide the executor of a stage
+     *
+     * @param stage
+     * @return
+     */
+    public static Executor forStage(Stage<?, ?> stage) {
+        return EXECUTORS.computeIfAbsent(stage.getName(), stageName -> create(stageName, stage.isRemote()));
+    }
+
+    private static ThreadPoolExecutor create(String stageName, boolean remote) {
+        int defaultThreads = remote ? EngineConfiguration.REMOTE_STAGE_THREADS : EngineConfiguration.STAGE_THREADS;
+        int threads = Math.max(1, Integer.getInteger("akura.pipeline.stage." + stageName + ".threads", defaultThreads));
+        int queueSize = Math.max(1, Integer.getInteger("akura.pipeline.stage." + stageName + ".queueSize", EngineConfiguration.STAGE_QUEUE_SIZE));
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stage-" + stageName + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Stage " + stageName + " is shut down");
+                    }
+                    runnable.run();
+                });
+    }
+
+    /**
+     * Stop all stage executors. Called from the application shutdown hook.
+     */
+    public static void shutdown() {
+        EXECUTORS.values().forEach(ThreadPoolExecutor::shutdownNow);
+        EXECUTORS.clear();
+    }
+}
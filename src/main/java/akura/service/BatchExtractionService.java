@@ -0,0 +1,219 @@
+package akura.service;
+
+import akura.cloundnlp.dtos.OntologyMapDto;
+import akura.utility.BatchReviewRequest;
+import akura.utility.EngineConfiguration;
+import akura.utility.GsonProvider;
+import akura.utility.LogStage;
+import akura.utility.Logger;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk review extraction.
+ * Reviews are read one by one from a json array or from newline delimited json, processed with bounded concurrency
+ * and every result is written as one json line as soon as it completes, so neither the request nor the response
+ * is held in memory as a whole. Results are written in completion order and carry the review id.
+ * When the output can not be written, e.g. because the client has gone away, the reviews still in flight are cancelled.
+ */
+public class BatchExtractionService {
+    private final EntityExtractorService entityExtractorService;
+    private final ExecutorService executor;
+    private final Gson gson = GsonProvider.compact();
+
+    public BatchExtractionService(EntityExtractorService entityExtractorService) {
+        this.entityExtractorService = entityExtractorService;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, EngineConfiguration.BATCH_CONCURRENCY), runnable -> {
+            Thread thread = new Thread(runnable, "batch-extraction-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Process every review of the input and stream one result line per review to the output.
+     * An empty input is an empty batch. A review which can not be parsed gets an error line. Newline delimited
+     * reading goes on with the next line, while a malformed json array ends the batch after the reviews before it.
+     *
+     * @param input  - json array or newline delimited json of reviews.
+     * @param output - newline delimited json of results.
+     * @return number of reviews read, including those which could not be parsed
+     * @throws IOException
+     */
+    public int extract(InputStream input, Writer output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ResultStream results = new ResultStream(output);
+        try {
+            int first = peekNonWhitespace(reader);
+            if (first == '[') {
+                readArray(reader, results);
+            } else if (first >= 0) {
+                readLines(reader, results);
+            }
+            results.drain();
+        } catch (IOException e) {
+            results.cancel();
+            throw e;
+        } catch (InterruptedException e) {
+            results.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch extraction interrupted");
+        }
+        return results.count;
+    }
+
+    private void readArray(BufferedReader reader, ResultStream results) throws IOException, InterruptedException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        try {
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                BatchReviewRequest review = gson.fromJson(jsonReader, BatchReviewRequest.class);
+                if (review == null) {
+                    break;
+                }
+                results.submit(review);
+            }
+        } catch (RuntimeException | MalformedJsonException | EOFException e) {
+            // gson reports a malformed element with a JsonParseException or, for bad numbers, a NumberFormatException
+            results.fail(e);
+        }
+    }
+
+    private void readLines(BufferedReader reader, ResultStream results) throws IOException, InterruptedException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            BatchReviewRequest review;
+            try {
+                review = gson.fromJson(line, BatchReviewRequest.class);
+            } catch (RuntimeException e) {
+                results.fail(e);
+                continue;
+            }
+            if (review != null) {
+                results.submit(review);
+            }
+        }
+    }
+
+    private static int peekNonWhitespace(BufferedReader reader) throws IOException {
+        while (true) {
+            reader.mark(1);
+            int current = reader.read();
+            if (current < 0 || !Character.isWhitespace(current)) {
+                reader.reset();
+                return current;
+            }
+        }
+    }
+
+    private String process(String reviewId, BatchReviewRequest review) {
+        try {
+            OntologyMapDto ontologyMapDto = entityExtractorService.extractReview(
+                    reviewId,
+                    review.text,
+                    (review.rating != null) ? review.rating : 0f,
+                    review.mainEntity
+            );
+            return gson.toJson(ontologyMapDto);
+        } catch (Exception e) {
+            Logger.error(LogStage.SERVICE, "Batch review " + reviewId + " failed", e);
+            return errorLine(reviewId, e);
+        }
+    }
+
+    private String errorLine(String reviewId, Exception e) {
+        Map<String, String> error = new LinkedHashMap<>();
+        error.put("reviewId", reviewId);
+        error.put("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+        return gson.toJson(error);
+    }
+
+    /**
+     * Reviews of one request in flight, at most twice the batch concurrency, and their result lines
+     */
+    private class ResultStream {
+        private final int maxInFlight = Math.max(1, EngineConfiguration.BATCH_CONCURRENCY) * 2;
+        private final CompletionService<String> completionService = new ExecutorCompletionService<>(executor);
+        private final Set<Future<String>> pending = new HashSet<>();
+        private final Writer output;
+        private int count;
+
+        ResultStream(Writer output) {
+            this.output = output;
+        }
+
+        void submit(BatchReviewRequest review) throws IOException, InterruptedException {
+            String reviewId = (review.id != null) ? review.id : String.valueOf(count);
+            count++;
+            pending.add(completionService.submit(() -> process(reviewId, review)));
+            Future<String> completed;
+            while ((completed = completionService.poll()) != null) {
+                write(completed);
+            }
+            if (pending.size() >= maxInFlight) {
+                write(completionService.take());
+            }
+        }
+
+        /**
+         * Write the error line of a review which could not be parsed
+         */
+        void fail(Exception e) throws IOException {
+            writeLine(errorLine(String.valueOf(count), e));
+            count++;
+        }
+
+        void drain() throws IOException, InterruptedException {
+            while (!pending.isEmpty()) {
+                write(completionService.take());
+            }
+        }
+
+        /**
+         * Cancel the reviews which have not been written yet
+         */
+        void cancel() {
+            for (Future<String> result : pending) {
+                result.cancel(true);
+            }
+            pending.clear();
+        }
+
+        private void write(Future<String> result) throws IOException, InterruptedException {
+            pending.remove(result);
+            try {
+                writeLine(result.get());
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+
+        private void writeLine(String line) throws IOException {
+            output.write(line);
+            output.write('\n');
+            output.flush();
+        }
+    }
+
+    /**
+     * Stop the executor. Called from the application shutdown hook.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,145 @@
+package akura.service;
+
+import akura.utility.EngineConfiguration;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Checks job callback urls before the server posts to them.
+ * Only http and https urls whose host is on {@link EngineConfiguration#CALLBACK_ALLOWED_HOSTS} are accepted,
+ * and the host must not resolve to a loopback, link local, private or otherwise internal address.
+ * With an empty allowlist every callback url is rejected.
+ * The checked addresses are returned with the url, posting to them instead of resolving the host again
+ * keeps a rebinding dns server from swapping in an internal address after the check.
+ */
+public class CallbackUrlValidator {
+    private static final Set<String> ALLOWED_HOSTS = parseHosts(EngineConfiguration.CALLBACK_ALLOWED_HOSTS);
+
+    /**
+     * Thrown for a callback url the server will not post to
+     */
+    public static class InvalidCallbackUrlException extends IllegalArgumentException {
+        public InvalidCallbackUrlException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A callback url with the addresses its host resolved to when it was checked
+     */
+    public static class ValidatedCallback {
+        private final URI uri;
+        private final InetAddress[] addresses;
+
+        private ValidatedCallback(URI uri, InetAddress[] addresses) {
+            this.uri = uri;
+            this.addresses = addresses;
+        }
+
+        public URI getUri() {
+            return uri;
+        }
+
+        public InetAddress[] getAddresses() {
+            return addresses.clone();
+        }
+    }
+
+    /**
+     * Validate a callback url
+     *
+     * @param callbackUrl
+     * @return parsed url and its checked addresses
+     * @throws InvalidCallbackUrlException when the url is malformed, not allowed or points at an internal address
+     */
+    public static ValidatedCallback validate(String callbackUrl) {
+        URI uri;
+        try {
+            uri = new URI(callbackUrl);
+        } catch (URISyntaxException e) {
+            throw new InvalidCallbackUrlException("malformed callback url");
+        }
+        String scheme = uri.getScheme();
+        if (scheme == null || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            throw new InvalidCallbackUrlException("callback url must be http or https");
+        }
+        if (uri.getRawUserInfo() != null) {
+            throw new InvalidCallbackUrlException("callback url must not carry credentials");
+        }
+        String host = uri.getHost();
+        if (host == null || host.isEmpty()) {
+            throw new InvalidCallbackUrlException("callback url has no host");
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        if (!isAllowedHost(host)) {
+            throw new InvalidCallbackUrlException("callback host is not allowed: " + host);
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new InvalidCallbackUrlException("callback host can not be resolved: " + host);
+        }
+        for (InetAddress address : addresses) {
+            if (isInternal(address)) {
+                throw new InvalidCallbackUrlException("callback host resolves to an internal address: " + host);
+            }
+        }
+        return new ValidatedCallback(uri, addresses);
+    }
+
+    /**
+     * Hosts match an allowlist entry exactly, or any subdomain of an entry written as *.example.com
+     */
+    private static boolean isAllowedHost(String host) {
+        for (String allowed : ALLOWED_HOSTS) {
+            if (allowed.startsWith("*.")) {
+                if (host.endsWith(allowed.substring(1))) {
+                    return true;
+                }
+            } else if (host.equals(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInternal(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            // 0.0.0.0/8, carrier grade nat 100.64.0.0/10 and the reserved 240.0.0.0/4 range
+            return first == 0 || (first == 100 && (second & 0xc0) == 64) || first >= 240;
+        }
+        if (address instanceof Inet6Address) {
+            // unique local fc00::/7
+            return (bytes[0] & 0xfe) == 0xfc;
+        }
+        return false;
+    }
+
+    private static Set<String> parseHosts(String hosts) {
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String host : hosts.split(",")) {
+            host = host.trim().toLowerCase(Locale.ROOT);
+            if (!host.isEmpty()) {
+                parsed.add(host);
+            }
+        }
+        return Collections.unmodifiableSet(parsed);
+    }
+}
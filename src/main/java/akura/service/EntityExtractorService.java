@@ -3,10 +3,11 @@ package akura.service;
 import akura.cloundnlp.EntityExtractor;
 import akura.cloundnlp.RelationshipExtractor;
 import akura.cloundnlp.dtos.OntologyMapDto;
+import akura.utility.LogStage;
+import akura.utility.Logger;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * Entity extractor service class
@@ -20,12 +21,16 @@ public class EntityExtractorService {
         return entityExtractor.extractEntityData(text, entity);
     }
 
+    public OntologyMapDto extractReview(String reviewId, String text, float rating, String entity) throws IOException {
+        return entityExtractor.extractReviewData(reviewId, text, rating, entity);
+    }
+
     public List<String> modifiedSentenceList(String text, String entity) {
         List<String> resultList = null;
         try{
             resultList = relationshipExtractor.executeModifier(text, entity);
         } catch (IOException e) {
-            System.out.println("IO EXCEPTION: "+e.getLocalizedMessage());
+            Logger.error(LogStage.SERVICE, "IO EXCEPTION: " + e.getLocalizedMessage(), e);
         }
         return resultList;
     }
@@ -0,0 +1,66 @@
+package akura.service;
+
+/**
+ * Asynchronous extraction job
+ */
+public class ExtractionJob {
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String jobId;
+    private volatile Status status = Status.PENDING;
+    private volatile Object result;
+    private volatile String error;
+    private final long submittedAt;
+    private volatile long completedAt;
+
+    public ExtractionJob(String jobId) {
+        this.jobId = jobId;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public long getCompletedAt() {
+        return completedAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void markRunning() {
+        status = Status.RUNNING;
+    }
+
+    void complete(Object result) {
+        this.result = result;
+        this.completedAt = System.currentTimeMillis();
+        this.status = Status.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.completedAt = System.currentTimeMillis();
+        this.status = Status.FAILED;
+    }
+}
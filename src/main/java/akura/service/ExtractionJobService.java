@@ -0,0 +1,124 @@
+package akura.service;
+
+import akura.utility.APIConnection;
+import akura.utility.EngineConfiguration;
+import akura.utility.GsonProvider;
+import akura.utility.LogStage;
+import akura.utility.Logger;
+import akura.utility.Metrics;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs extraction requests asynchronously on a dedicated pipeline executor.
+ * Submitting returns a job immediately, clients poll the job or receive it on their callback url once it has finished.
+ * Finished jobs are kept for {@link EngineConfiguration#JOB_RETENTION_MINUTES}.
+ */
+public class ExtractionJobService {
+    private final Map<String, ExtractionJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor pipelineExecutor;
+    private final ScheduledExecutorService cleanupExecutor;
+    private final Gson gson = GsonProvider.compact();
+
+    public ExtractionJobService() {
+        AtomicInteger threadCount = new AtomicInteger();
+        pipelineExecutor = new ThreadPoolExecutor(
+                EngineConfiguration.PIPELINE_THREADS,
+                EngineConfiguration.PIPELINE_THREADS,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(EngineConfiguration.PIPELINE_QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "extraction-pipeline-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "extraction-job-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleanupExecutor.scheduleWithFixedDelay(this::removeExpiredJobs, 1, 1, TimeUnit.MINUTES);
+        Metrics.registerGauge("akura_pipeline_queue_size", "Extraction jobs waiting for a pipeline thread.", false, () -> pipelineExecutor.getQueue().size());
+        Metrics.registerGauge("akura_pipeline_active_jobs", "Extraction jobs running.", false, pipelineExecutor::getActiveCount);
+        Metrics.registerGauge("akura_pipeline_completed_jobs_total", "Extraction jobs finished.", true, pipelineExecutor::getCompletedTaskCount);
+    }
+
+    /**
+     * Submit a task
+     *
+     * @param task        - extraction task.
+     * @param callbackUrl - url the finished job is posted to, may be null.
+     * @return submitted job
+     * @throws RejectedExecutionException when the pipeline queue is full
+     * @throws CallbackUrlValidator.InvalidCallbackUrlException when the callback url is not allowed
+     */
+    public ExtractionJob submit(Callable<?> task, String callbackUrl) {
+        if (callbackUrl != null && !callbackUrl.isEmpty()) {
+            CallbackUrlValidator.validate(callbackUrl);
+        }
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID().toString());
+        jobs.put(job.getJobId(), job);
+        try {
+            pipelineExecutor.execute(() -> run(job, task, callbackUrl));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Find a job
+     *
+     * @param jobId
+     * @return job or null when it is unknown or has expired
+     */
+    public ExtractionJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void run(ExtractionJob job, Callable<?> task, String callbackUrl) {
+        job.markRunning();
+        try {
+            job.complete(task.call());
+        } catch (Exception e) {
+            Logger.error(LogStage.SERVICE, "Extraction job " + job.getJobId() + " failed", e);
+            job.fail(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        if (callbackUrl != null && !callbackUrl.isEmpty()) {
+            try {
+                // validated again, the host may resolve differently by the time the job has finished
+                CallbackUrlValidator.ValidatedCallback callback = CallbackUrlValidator.validate(callbackUrl);
+                APIConnection.postJson(callback.getUri().toString(), gson.toJson(job), callback.getAddresses());
+            } catch (CallbackUrlValidator.InvalidCallbackUrlException e) {
+                Logger.warn(LogStage.SERVICE, "CALLBACK REJECTED: " + callbackUrl + " " + e.getMessage());
+            } catch (IOException e) {
+                Logger.warn(LogStage.SERVICE, "CALLBACK FAILED: " + callbackUrl + " " + e.getLocalizedMessage());
+            }
+        }
+    }
+
+    private void removeExpiredJobs() {
+        long expiry = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(EngineConfiguration.JOB_RETENTION_MINUTES);
+        jobs.values().removeIf(job -> job.isFinished() && job.getCompletedAt() < expiry);
+    }
+
+    /**
+     * Stop the executors, waiting a short while for running jobs. Called from the application shutdown hook.
+     */
+    public void shutdown() {
+        cleanupExecutor.shutdownNow();
+        pipelineExecutor.shutdown();
+        try {
+            pipelineExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pipelineExecutor.shutdownNow();
+    }
+}
@@ -2,31 +2,91 @@ package akura.utility;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
 import com.google.cloud.language.v1beta2.LanguageServiceClient;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.net.InetAddress;
 import java.net.ProtocolException;
 import java.net.URL;
+import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.security.GeneralSecurityException;
-import java.util.NoSuchElementException;
 
 /**
  * Class representing API Connection methods.
  */
 public class APIConnection {
-    private final static String DATA_GRAPH_URL = "http://concept.research.microsoft.com/api/Concept/ScoreByProb?instance=";
+    private final static RequestConfig DEFAULT_REQUEST_CONFIG = RequestConfig.custom()
+            .setConnectTimeout(EngineConfiguration.HTTP_TIMEOUT_MILLIS)
+            .setConnectionRequestTimeout(EngineConfiguration.HTTP_TIMEOUT_MILLIS)
+            .setSocketTimeout(EngineConfiguration.HTTP_TIMEOUT_MILLIS)
+            .build();
+    private final static CloseableHttpClient HTTP_CLIENT = createHttpClient();
+    private final static ThreadLocal<InetAddress[]> PINNED_ADDRESSES = new ThreadLocal<>();
+    private final static CloseableHttpClient PINNED_HTTP_CLIENT = createPinnedHttpClient();
+    private static ConceptResolver conceptResolver;
+
+    /**
+     * Shared http client backed by a connection pool, so lookups reuse connections instead of building a client per call
+     *
+     * @return
+     */
+    private static CloseableHttpClient createHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(EngineConfiguration.HTTP_MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(EngineConfiguration.HTTP_MAX_CONNECTIONS);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(DEFAULT_REQUEST_CONFIG)
+                .build();
+    }
+
+    /**
+     * Http client that never resolves host names itself, it connects to the addresses pinned for the current call.
+     * Connections are not reused, so every call connects to its own pinned addresses.
+     *
+     * @return
+     */
+    private static CloseableHttpClient createPinnedHttpClient() {
+        DnsResolver pinnedResolver = host -> {
+            InetAddress[] addresses = PINNED_ADDRESSES.get();
+            if (addresses == null || addresses.length == 0) {
+                throw new UnknownHostException("No pinned address for " + host);
+            }
+            return addresses.clone();
+        };
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                        .build(),
+                pinnedResolver);
+        connectionManager.setMaxTotal(EngineConfiguration.HTTP_MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(EngineConfiguration.HTTP_MAX_CONNECTIONS);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setConnectionReuseStrategy(NoConnectionReuseStrategy.INSTANCE)
+                .setDefaultRequestConfig(DEFAULT_REQUEST_CONFIG)
+                .build();
+    }
 
 
     public static void sendSocketRequest(String event, String msg) throws IOException {
@@ -55,6 +115,37 @@ public class APIConnection {
 
     }
 
+    /**
+     * Concept resolver used for short text lookups. A local concept table is used when one is configured,
+     * otherwise the remote concept graph behind the concept cache.
+     *
+     * @return
+     */
+    public static synchronized ConceptResolver getConceptResolver() {
+        if (conceptResolver == null) {
+            if (!EngineConfiguration.CONCEPT_TABLE_FILE.isEmpty()) {
+                try {
+                    conceptResolver = new LocalConceptResolver(Paths.get(EngineConfiguration.CONCEPT_TABLE_FILE));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            if (conceptResolver == null) {
+                conceptResolver = ConceptCache.getInstance();
+            }
+        }
+        return conceptResolver;
+    }
+
+    /**
+     * Replace the concept resolver, e.g. with a local snapshot
+     *
+     * @param resolver
+     */
+    public static synchronized void setConceptResolver(ConceptResolver resolver) {
+        conceptResolver = resolver;
+    }
+
     /**
      * MS graph connection
      *
@@ -63,27 +154,68 @@ public class APIConnection {
      * @return
      */
     public static String understandShortWordConcept(String text, String defaultValue) {
-        String url = DATA_GRAPH_URL.concat(text.trim()).concat("&topK=1").replaceAll(" ", "%20");
-        HttpClient client = HttpClientBuilder.create().build();
-        HttpGet getRequest = new HttpGet(url);
         try {
-            HttpResponse httpResponse = client.execute(getRequest);
-            HttpEntity httpEntity = httpResponse.getEntity();
-            JSONParser jsonParser = new JSONParser();
-            JSONObject jsonObject = (JSONObject) jsonParser.parse(EntityUtils.toString(httpEntity, "UTF-8"));
-            return jsonObject.keySet().iterator().next().toString();
+            String concept = getConceptResolver().resolve(text);
+            if (concept == null) {
+                Logger.debug(LogStage.NOUN_COMBINATION, () -> "No concept found for " + text);
+                return defaultValue;
+            }
+            return concept;
         } catch (IOException e) {
-            System.out.println(e);
-            return defaultValue;
-        } catch (ParseException e) {
-            System.out.println(e);
-            return defaultValue;
-        } catch (NoSuchElementException e) {
-            System.out.println("Element not found!");
+            Logger.debug(LogStage.NOUN_COMBINATION, () -> "Concept lookup failed for " + text + ": " + e);
             return defaultValue;
         }
     }
 
+    /**
+     * Shared pooled http client
+     *
+     * @return
+     */
+    public static CloseableHttpClient getHttpClient() {
+        return HTTP_CLIENT;
+    }
+
+    /**
+     * Post a json body to the given addresses of the url host, the host name is not resolved again.
+     * Used for callbacks whose addresses were checked beforehand. Redirects are not followed.
+     *
+     * @param url
+     * @param body
+     * @param addresses - addresses the url host may connect to.
+     * @return http status code
+     * @throws IOException
+     */
+    public static int postJson(String url, String body, InetAddress[] addresses) throws IOException {
+        HttpPost postRequest = new HttpPost(url);
+        postRequest.setConfig(RequestConfig.copy(DEFAULT_REQUEST_CONFIG).setRedirectsEnabled(false).build());
+        postRequest.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        PINNED_ADDRESSES.set(addresses);
+        try (CloseableHttpResponse httpResponse = PINNED_HTTP_CLIENT.execute(postRequest)) {
+            EntityUtils.consume(httpResponse.getEntity());
+            return httpResponse.getStatusLine().getStatusCode();
+        } finally {
+            PINNED_ADDRESSES.remove();
+        }
+    }
+
+    /**
+     * Release the concept resolver and the pooled http connections. Called from the application shutdown hook.
+     */
+    public static void shutdown() {
+        synchronized (APIConnection.class) {
+            if (conceptResolver != null) {
+                conceptResolver.close();
+            }
+        }
+        try {
+            HTTP_CLIENT.close();
+            PINNED_HTTP_CLIENT.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Authenticate Google API
      *
@@ -97,6 +229,7 @@ public class APIConnection {
 
     /**
      * Provide Authentication with client.
+     * Creates a new client with its own channel, request handlers should borrow from {@link LanguageServiceClientPool} instead.
      *
      * @return
      * @throws IOException
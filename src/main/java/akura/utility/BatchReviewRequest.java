@@ -0,0 +1,11 @@
+package akura.utility;
+
+/**
+ * Single review of a batch extraction request
+ */
+public class BatchReviewRequest {
+    public String id;
+    public String text;
+    public Float rating;
+    public String mainEntity;
+}
@@ -0,0 +1,283 @@
+package akura.utility;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caching concept resolver in front of a slower resolver such as the remote concept graph.
+ * The memory tier is a size bounded LRU, concurrent lookups of the same phrase share a single remote call.
+ * Every resolved phrase is appended once to a journal file which is replayed on startup, so restarts stay warm.
+ * The journal offset of every phrase is kept in an index, so a phrase evicted from memory is read back from the
+ * journal instead of being resolved again. Phrases without a concept are cached as well, failed lookups are not.
+ */
+public class ConceptCache implements ConceptResolver {
+    private final static String NOT_FOUND = "";
+    private final static String SEPARATOR = "\t";
+    private static ConceptCache instance;
+
+    private final ConceptResolver delegate;
+    private final Cache<String, String> memoryCache;
+    private final Path journalFile;
+    private final Map<String, Long> journalIndex = new ConcurrentHashMap<>();
+    private volatile FileChannel journalChannel;
+    private long journalLength;
+    private final AtomicLong remoteLookups = new AtomicLong();
+
+    /**
+     * @param delegate    - resolver used on a miss.
+     * @param maximumSize - maximum number of phrases kept in memory.
+     * @param journalFile - journal path, or an empty string to disable the journal.
+     */
+    public ConceptCache(ConceptResolver delegate, int maximumSize, String journalFile) {
+        this.delegate = delegate;
+        this.memoryCache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.journalFile = journalFile.isEmpty() ? null : Paths.get(journalFile);
+        openJournal();
+    }
+
+    /**
+     * Provide the application wide cache in front of the remote concept graph, configured from {@link EngineConfiguration}
+     *
+     * @return
+     */
+    public static synchronized ConceptCache getInstance() {
+        if (instance == null) {
+            instance = new ConceptCache(new RemoteConceptResolver(), EngineConfiguration.CONCEPT_CACHE_SIZE, EngineConfiguration.CONCEPT_CACHE_FILE);
+            ConceptCache cache = instance;
+            Metrics.registerGauge("akura_concept_cache_hits_total", "Concepts served from the concept cache.", true, cache::getHitCount);
+            Metrics.registerGauge("akura_concept_cache_misses_total", "Concepts missing from the concept cache.", true, cache::getMissCount);
+            Metrics.registerGauge("akura_concept_cache_size", "Concepts held in memory.", false, cache::getSize);
+        }
+        return instance;
+    }
+
+    /**
+     * Return the concept of a phrase, resolving it with the delegate and journaling it on a miss
+     *
+     * @param phrase
+     * @return concept or null when the phrase has no concept
+     * @throws IOException when the delegate failed
+     */
+    @Override
+    public String resolve(String phrase) throws IOException {
+        String key = normalize(phrase);
+        try {
+            String concept = memoryCache.get(key, () -> {
+                String journaled = readJournal(key);
+                if (journaled != null) {
+                    return journaled;
+                }
+                remoteLookups.incrementAndGet();
+                String loaded = delegate.resolve(key);
+                String value = (loaded == null) ? NOT_FOUND : normalize(loaded);
+                appendToJournal(key, value);
+                return value;
+            });
+            return NOT_FOUND.equals(concept) ? null : concept;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Normalize the whitespace of a phrase so the same phrase always maps to the same key and fits in a journal line
+     *
+     * @param phrase
+     * @return
+     */
+    private static String normalize(String phrase) {
+        return phrase.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Replay the journal into the memory tier and the index, and compact it when it has grown with duplicates
+     */
+    private void openJournal() {
+        if (journalFile == null) {
+            return;
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        try {
+            if (Files.exists(journalFile)) {
+                long lineCount = scanJournal(entries);
+                if (lineCount > 2L * entries.size()) {
+                    Path compactedFile = Files.createTempFile(journalFile.toAbsolutePath().getParent(), "concept-cache", ".tmp");
+                    try (BufferedWriter writer = Files.newBufferedWriter(compactedFile, StandardCharsets.UTF_8)) {
+                        for (Map.Entry<String, String> entry : entries.entrySet()) {
+                            writer.write(entry.getKey() + SEPARATOR + entry.getValue() + "\n");
+                        }
+                    }
+                    Files.move(compactedFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    journalIndex.clear();
+                    scanJournal(new HashMap<>());
+                }
+            }
+            memoryCache.putAll(entries);
+            journalChannel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // drop a line cut short by an interrupted write, so the next entry starts on a line of its own
+            journalChannel.truncate(journalLength);
+        } catch (IOException e) {
+            Logger.error(LogStage.SERVICE, "Could not open the concept journal " + journalFile, e);
+        }
+    }
+
+    /**
+     * Read every complete journal line into the entries and the value offset of each key into the index.
+     * Later lines win. The journal length is set to the end of the last complete line.
+     *
+     * @param entries
+     * @return number of lines
+     * @throws IOException
+     */
+    private long scanJournal(Map<String, String> entries) throws IOException {
+        long lineCount = 0;
+        long lineStart = 0;
+        long position = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(journalFile))) {
+            int current;
+            while ((current = input.read()) >= 0) {
+                position++;
+                if (current != '\n') {
+                    line.write(current);
+                    continue;
+                }
+                byte[] bytes = line.toByteArray();
+                line.reset();
+                int separator = indexOf(bytes, (byte) '\t');
+                if (separator >= 0) {
+                    lineCount++;
+                    String key = new String(bytes, 0, separator, StandardCharsets.UTF_8);
+                    entries.remove(key);
+                    entries.put(key, new String(bytes, separator + 1, bytes.length - separator - 1, StandardCharsets.UTF_8));
+                    journalIndex.put(key, lineStart + separator + 1);
+                }
+                lineStart = position;
+            }
+        }
+        journalLength = lineStart;
+        return lineCount;
+    }
+
+    private static int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read the journaled value of a phrase
+     *
+     * @param key
+     * @return value or null when the phrase is not journaled
+     * @throws IOException
+     */
+    private String readJournal(String key) throws IOException {
+        Long valueOffset = journalIndex.get(key);
+        FileChannel channel = journalChannel;
+        if (valueOffset == null || channel == null) {
+            return null;
+        }
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        long position = valueOffset;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Journal line without an end at " + valueOffset);
+            }
+            for (int i = 0; i < read; i++) {
+                byte current = buffer.get(i);
+                if (current == '\n') {
+                    return new String(value.toByteArray(), StandardCharsets.UTF_8);
+                }
+                value.write(current);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Append a resolved phrase to the journal, unless it is already journaled
+     *
+     * @param key
+     * @param value
+     */
+    private synchronized void appendToJournal(String key, String value) {
+        if (journalChannel == null || journalIndex.containsKey(key)) {
+            return;
+        }
+        byte[] keyBytes = (key + SEPARATOR).getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = (value + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer line = ByteBuffer.allocate(keyBytes.length + valueBytes.length);
+        line.put(keyBytes).put(valueBytes).flip();
+        try {
+            while (line.hasRemaining()) {
+                journalChannel.write(line, journalLength + line.position());
+            }
+            journalIndex.put(key, journalLength + keyBytes.length);
+            journalLength += line.limit();
+        } catch (IOException e) {
+            Logger.error(LogStage.SERVICE, "Could not journal the concept of " + key, e);
+        }
+    }
+
+    /**
+     * Close the journal and the delegate
+     */
+    @Override
+    public synchronized void close() {
+        delegate.close();
+        if (journalChannel == null) {
+            return;
+        }
+        try {
+            journalChannel.close();
+        } catch (IOException e) {
+            Logger.error(LogStage.SERVICE, "Could not close the concept journal " + journalFile, e);
+        }
+        journalChannel = null;
+    }
+
+    public long getHitCount() {
+        return memoryCache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return memoryCache.stats().missCount();
+    }
+
+    public long getRemoteLookupCount() {
+        return remoteLookups.get();
+    }
+
+    public long getSize() {
+        return memoryCache.size();
+    }
+}
@@ -0,0 +1,24 @@
+package akura.utility;
+
+import java.io.IOException;
+
+/**
+ * Resolves a short text (usually a noun phrase) to its top concept from a concept graph.
+ */
+public interface ConceptResolver {
+
+    /**
+     * Resolve the top concept of a phrase
+     *
+     * @param phrase - short text.
+     * @return concept or null when the phrase has no concept
+     * @throws IOException when the concept graph could not be queried
+     */
+    String resolve(String phrase) throws IOException;
+
+    /**
+     * Release resources held by the resolver
+     */
+    default void close() {
+    }
+}
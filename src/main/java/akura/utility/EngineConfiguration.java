@@ -0,0 +1,46 @@
+package akura.utility;
+
+/**
+ * Engine wide configuration values.
+ * Each value can be overridden with a JVM system property, e.g. -Dakura.nlp.clientPoolSize=4
+ */
+public final class EngineConfiguration {
+    public static final String NLP_BACKEND = System.getProperty("akura.nlp.backend", "google");
+    public static final long NLP_LATENCY_BUDGET_MILLIS = Long.getLong("akura.nlp.route.latencyBudgetMillis", 1500);
+    public static final int NLP_ROUTE_SHORT_TEXT_CHARS = Integer.getInteger("akura.nlp.route.shortTextChars", 160);
+    public static final int NLP_ROUTE_MAX_REMOTE_IN_FLIGHT = Integer.getInteger("akura.nlp.route.maxRemoteInFlight", 8);
+    public static final long NLP_ROUTE_PROBE_MILLIS = Long.getLong("akura.nlp.route.probeMillis", 5000);
+    public static final int LANGUAGE_CLIENT_POOL_SIZE = Integer.getInteger("akura.nlp.clientPoolSize", 2);
+    public static final boolean SENTENCE_ENTITY_BATCHING = Boolean.parseBoolean(System.getProperty("akura.nlp.sentenceBatching", "true"));
+    public static final int NLP_REQUEST_PARALLELISM = Integer.getInteger("akura.nlp.parallelism", 8);
+    public static final boolean ANNOTATE_REVIEWS = Boolean.parseBoolean(System.getProperty("akura.nlp.annotate", "true"));
+    public static final long NLP_REVIEW_TIMEOUT_MILLIS = Long.getLong("akura.nlp.reviewTimeoutMillis", 30000);
+    public static final int NLP_CACHE_SIZE = Integer.getInteger("akura.nlp.cache.size", 10000);
+    public static final long NLP_CACHE_TTL_MINUTES = Long.getLong("akura.nlp.cache.ttlMinutes", 24 * 60);
+    public static final String NLP_CACHE_DIRECTORY = System.getProperty("akura.nlp.cache.dir", "");
+    public static final int CONCEPT_CACHE_SIZE = Integer.getInteger("akura.concept.cache.size", 100000);
+    public static final String CONCEPT_CACHE_FILE = System.getProperty("akura.concept.cache.file", "concept-cache.tsv");
+    public static final String CONCEPT_TABLE_FILE = System.getProperty("akura.concept.table", "");
+    public static final String DEVICE_CATALOG_FILE = System.getProperty("akura.device.catalog", "./src/main/java/akura/cloundnlp/sample_resources/phone_dataset.json");
+    public static final long DEVICE_CATALOG_RELOAD_CHECK_MILLIS = Long.getLong("akura.device.catalog.reloadCheckMillis", 5000);
+    public static final int PIPELINE_THREADS = Integer.getInteger("akura.pipeline.threads", 4);
+    public static final int PIPELINE_QUEUE_SIZE = Integer.getInteger("akura.pipeline.queueSize", 10000);
+    public static final int STAGE_THREADS = Integer.getInteger("akura.pipeline.stageThreads", 2);
+    public static final int STAGE_QUEUE_SIZE = Integer.getInteger("akura.pipeline.stageQueueSize", 64);
+    public static final int BATCH_CONCURRENCY = Integer.getInteger("akura.batch.concurrency", 4);
+    public static final int REMOTE_STAGE_THREADS = Integer.getInteger("akura.pipeline.remoteStageThreads",
+            Math.max(PIPELINE_THREADS, Math.max(BATCH_CONCURRENCY, NLP_REQUEST_PARALLELISM)));
+    public static final String CALLBACK_ALLOWED_HOSTS = System.getProperty("akura.jobs.callbackHosts", "");
+    public static final long JOB_RETENTION_MINUTES = Long.getLong("akura.jobs.retentionMinutes", 60);
+    public static final int HTTP_MAX_CONNECTIONS = Integer.getInteger("akura.http.maxConnections", 20);
+    public static final String COLUMN_OUTPUT_FILE = System.getProperty("akura.output.columnFile", "Output.akc");
+    public static final int COLUMN_OUTPUT_BLOCK_ROWS = Integer.getInteger("akura.output.blockRows", 4096);
+    public static final String CORENLP_WARM_UP_PROFILES = System.getProperty("akura.corenlp.warmUp", "POS");
+    public static final boolean CORENLP_SHIFT_REDUCE = Boolean.parseBoolean(System.getProperty("akura.corenlp.shiftReduce", "false"));
+    public static final int CORENLP_PARSE_MAX_LENGTH = Integer.getInteger("akura.corenlp.parseMaxLength", 0);
+    public static final int CORENLP_THREADS = Integer.getInteger("akura.corenlp.threads", Runtime.getRuntime().availableProcessors());
+    public static final int HTTP_TIMEOUT_MILLIS = Integer.getInteger("akura.http.timeoutMillis", 10000);
+
+    private EngineConfiguration() {
+    }
+}
@@ -6,4 +6,5 @@ package akura.utility;
 public class EntityServiceResponse {
     public String text;
     public String entity;
+    public String callbackUrl;
 }
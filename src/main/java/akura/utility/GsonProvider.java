@@ -0,0 +1,82 @@
+package akura.utility;
+
+import akura.cloundnlp.dtos.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared, thread safe Gson instances.
+ * Gson instances are expensive to build and cache their type adapters, so they are created once and the adapters
+ * of the response dtos are resolved up front instead of on the first request.
+ * The ontology output dtos are written by the streaming adapters of {@link DtoTypeAdapterFactory}.
+ */
+public final class GsonProvider {
+    private static final Class<?>[] DTO_CLASSES = {
+            OntologyMapDto.class,
+            EntityDto.class,
+            SyntaxDto.class,
+            FinalEntityTagDto.class,
+            SpecificationDto.class,
+            SpecRelationshipDto.class,
+            SentenceDto.class,
+            SentenceWordDto.class,
+            MobileDataSet.class
+    };
+    private static final Gson COMPACT = new GsonBuilder()
+            .registerTypeAdapterFactory(new DtoTypeAdapterFactory())
+            .create();
+    private static final Gson PRETTY = new GsonBuilder()
+            .registerTypeAdapterFactory(new DtoTypeAdapterFactory())
+            .setPrettyPrinting()
+            .create();
+
+    static {
+        for (Class<?> dtoClass : DTO_CLASSES) {
+            COMPACT.getAdapter(dtoClass);
+            PRETTY.getAdapter(dtoClass);
+        }
+    }
+
+    private GsonProvider() {
+    }
+
+    /**
+     * Compact serializer, used for api responses by default
+     *
+     * @return
+     */
+    public static Gson compact() {
+        return COMPACT;
+    }
+
+    /**
+     * Pretty printing serializer, used for logs and on request
+     *
+     * @return
+     */
+    public static Gson pretty() {
+        return PRETTY;
+    }
+
+    public static Gson get(boolean prettyPrinting) {
+        return prettyPrinting ? PRETTY : COMPACT;
+    }
+
+    /**
+     * Serialize directly to an output stream instead of building the whole json string first.
+     * The stream is flushed but not closed.
+     *
+     * @param source
+     * @param outputStream
+     * @param prettyPrinting
+     * @throws IOException
+     */
+    public static void write(Object source, OutputStream outputStream, boolean prettyPrinting) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        get(prettyPrinting).toJson(source, writer);
+        writer.flush();
+    }
+}
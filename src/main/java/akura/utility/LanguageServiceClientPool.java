@@ -0,0 +1,101 @@
+package akura.utility;
+
+import com.google.cloud.language.v1beta2.LanguageServiceClient;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Application scoped pool of Google language service clients.
+ * Each client owns a gRPC channel, so clients are created once and shared between requests
+ * instead of being created per request.
+ */
+public class LanguageServiceClientPool {
+    private static LanguageServiceClientPool instance;
+
+    private final LanguageServiceClient[] clients;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    private LanguageServiceClientPool(int size) {
+        clients = new LanguageServiceClient[Math.max(1, size)];
+    }
+
+    /**
+     * Provide the application wide pool, sized by {@link EngineConfiguration#LANGUAGE_CLIENT_POOL_SIZE}
+     *
+     * @return
+     */
+    public static synchronized LanguageServiceClientPool getInstance() {
+        if (instance == null) {
+            instance = new LanguageServiceClientPool(EngineConfiguration.LANGUAGE_CLIENT_POOL_SIZE);
+        }
+        return instance;
+    }
+
+    /**
+     * Borrow a client from the pool. Clients are handed out round robin and must not be closed by the caller.
+     * A client that failed its health check is replaced before it is handed out.
+     *
+     * @return
+     * @throws IOException
+     */
+    public LanguageServiceClient acquire() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Language service client pool is shut down");
+        }
+        int slot = Math.floorMod(cursor.getAndIncrement(), clients.length);
+        synchronized (clients) {
+            LanguageServiceClient client = clients[slot];
+            if (!isHealthy(client)) {
+                client = APIConnection.provideLanguageServiceClient();
+                clients[slot] = client;
+            }
+            return client;
+        }
+    }
+
+    /**
+     * Create every client of the pool up front so the first request does not pay the channel setup.
+     *
+     * @throws IOException
+     */
+    public void warmUp() throws IOException {
+        for (int i = 0; i < clients.length; i++) {
+            acquire();
+        }
+    }
+
+    /**
+     * Health check of a single client
+     *
+     * @param client
+     * @return
+     */
+    private boolean isHealthy(LanguageServiceClient client) {
+        return client != null && !client.isShutdown() && !client.isTerminated();
+    }
+
+    /**
+     * Close all clients and release their channels. Called from the application shutdown hook.
+     */
+    public void shutdown() {
+        closed = true;
+        synchronized (clients) {
+            for (int i = 0; i < clients.length; i++) {
+                LanguageServiceClient client = clients[i];
+                if (client == null) {
+                    continue;
+                }
+                try {
+                    client.shutdown();
+                    client.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                clients[i] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package akura.utility;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Concept resolver backed by a local concept graph snapshot.
+ * The snapshot is compiled into a sorted string table which is memory mapped and searched with a binary search,
+ * so lookups need neither the network nor a copy of the table on the heap.
+ *
+ * Table layout: magic, version, record count, record offsets (count + 1 ints), then the records.
+ * Each record is a key length (unsigned short), the normalized instance in UTF-8, a value length and the concept in UTF-8.
+ * Records are sorted by the unsigned bytes of their key. Tables are limited to 2GB.
+ */
+public class LocalConceptResolver implements ConceptResolver {
+    private final static int MAGIC = 0x414B4354;
+    private final static int VERSION = 1;
+    private final static int HEADER_SIZE = 12;
+
+    private final MappedByteBuffer table;
+    private final int recordCount;
+    private final int dataStart;
+
+    /**
+     * Open a compiled table
+     *
+     * @param tableFile - table built with {@link #build(Path, Path)}.
+     * @throws IOException
+     */
+    public LocalConceptResolver(Path tableFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(tableFile, StandardOpenOption.READ)) {
+            table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (table.getInt(0) != MAGIC || table.getInt(4) != VERSION) {
+            throw new IOException("Not a concept table: " + tableFile);
+        }
+        recordCount = table.getInt(8);
+        dataStart = HEADER_SIZE + (recordCount + 1) * 4;
+    }
+
+    @Override
+    public String resolve(String phrase) {
+        byte[] key = normalize(phrase).getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = recordCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int recordStart = recordStart(middle);
+            int comparison = compareKey(recordStart, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return readValue(recordStart);
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    private int recordStart(int index) {
+        return dataStart + table.getInt(HEADER_SIZE + index * 4);
+    }
+
+    private int compareKey(int recordStart, byte[] key) {
+        int keyLength = table.getShort(recordStart) & 0xFFFF;
+        int position = recordStart + 2;
+        int length = Math.min(keyLength, key.length);
+        for (int i = 0; i < length; i++) {
+            int difference = (table.get(position + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return keyLength - key.length;
+    }
+
+    private String readValue(int recordStart) {
+        int valueStart = recordStart + 2 + (table.getShort(recordStart) & 0xFFFF);
+        byte[] value = new byte[table.getShort(valueStart) & 0xFFFF];
+        ByteBuffer view = table.duplicate();
+        view.position(valueStart + 2);
+        view.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Normalize a phrase the same way for building and lookups
+     *
+     * @param phrase
+     * @return
+     */
+    static String normalize(String phrase) {
+        return phrase.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compile a concept graph snapshot into a table.
+     * Each snapshot line is instance, concept and an optional score separated by tabs.
+     * When an instance has several concepts the one with the highest score, or the first one without scores, is kept.
+     *
+     * @param snapshotFile
+     * @param tableFile
+     * @return number of instances written
+     * @throws IOException
+     */
+    public static int build(Path snapshotFile, Path tableFile) throws IOException {
+        Map<String, String> concepts = new HashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split("\t");
+                if (columns.length < 2 || columns[0].trim().isEmpty()) {
+                    continue;
+                }
+                String instance = normalize(columns[0]);
+                double score = (columns.length > 2) ? parseScore(columns[2]) : 0d;
+                Double currentScore = scores.get(instance);
+                if (currentScore == null || score > currentScore) {
+                    concepts.put(instance, columns[1].trim());
+                    scores.put(instance, score);
+                }
+            }
+        }
+        scores.clear();
+
+        // entries whose key or concept does not fit the 16 bit length prefix are skipped, a cut value is not a concept
+        List<byte[]> keys = new ArrayList<>(concepts.size());
+        for (Map.Entry<String, String> concept : concepts.entrySet()) {
+            byte[] key = concept.getKey().getBytes(StandardCharsets.UTF_8);
+            if (key.length <= 0xFFFF && concept.getValue().getBytes(StandardCharsets.UTF_8).length <= 0xFFFF) {
+                keys.add(key);
+            }
+        }
+        keys.sort(UnsignedBytes.lexicographicalComparator());
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tableFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(keys.size());
+            byte[][] values = new byte[keys.size()][];
+            long offset = 0;
+            for (int i = 0; i < keys.size(); i++) {
+                values[i] = concepts.get(new String(keys.get(i), StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+                output.writeInt((int) offset);
+                offset += 4 + keys.get(i).length + values[i].length;
+                if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("Concept table exceeds 2GB");
+                }
+            }
+            output.writeInt((int) offset);
+            for (int i = 0; i < keys.size(); i++) {
+                output.writeShort(keys.get(i).length);
+                output.write(keys.get(i));
+                output.writeShort(values[i].length);
+                output.write(values[i]);
+            }
+        }
+        return keys.size();
+    }
+
+    private static double parseScore(String score) {
+        try {
+            return Double.parseDouble(score.trim());
+        } catch (NumberFormatException e) {
+            return 0d;
+        }
+    }
+
+    /**
+     * Compile a snapshot from the command line: LocalConceptResolver &lt;snapshot.tsv&gt; &lt;table file&gt;
+     *
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: LocalConceptResolver <snapshot.tsv> <table file>");
+            return;
+        }
+        int count = build(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println("Wrote " + count + " concepts to " + args[1]);
+    }
+}
@@ -0,0 +1,35 @@
+package akura.utility;
+
+/**
+ * Pipeline stages with their own debug log.
+ * Each stage logs to the log4j logger akura.stage.&lt;stage&gt;, so its debug output can be enabled in log4j.properties,
+ * e.g. log4j.logger.akura.stage.syntax=DEBUG, or at startup with -Dakura.log.debug=syntax,entity (or all).
+ */
+public enum LogStage {
+    TOKENIZE("tokenize"),
+    ENTITY_REPLACEMENT("entityReplacement"),
+    SENTENCE_ANALYSIS("sentenceAnalysis"),
+    CATEGORY("category"),
+    ENTITY("entity"),
+    SYNTAX("syntax"),
+    NOUN_COMBINATION("nounCombination"),
+    AGGREGATION("aggregation"),
+    SPECIFICATION("specification"),
+    SERVICE("service");
+
+    private final String stageName;
+    private final org.apache.log4j.Logger logger;
+
+    LogStage(String stageName) {
+        this.stageName = stageName;
+        this.logger = org.apache.log4j.Logger.getLogger("akura.stage." + stageName);
+    }
+
+    public String getStageName() {
+        return stageName;
+    }
+
+    org.apache.log4j.Logger getLogger() {
+        return logger;
+    }
+}
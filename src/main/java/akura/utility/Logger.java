@@ -1,21 +1,116 @@
 package akura.utility;
 
+import org.apache.log4j.Appender;
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
 import org.apache.log4j.PropertyConfigurator;
 
-import java.io.IOException;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Logging facade over log4j.
+ * log4j is configured once, from log4j.properties when it exists, and the root appenders are wrapped in an
+ * {@link AsyncAppender} so request threads do not wait on file or console io (-Dakura.log.async=false disables it).
+ * Stage debug output is checked against the stage level before any message is built, so disabled dumps cost nothing.
+ */
 public class Logger {
     final static org.apache.log4j.Logger logger = org.apache.log4j.Logger.getRootLogger();
+    private final static String CONFIGURATION_FILE = System.getProperty("akura.log.config", "log4j.properties");
+    private final static boolean ASYNC_APPENDERS = Boolean.parseBoolean(System.getProperty("akura.log.async", "true"));
+    private final static String DEBUG_STAGES = System.getProperty("akura.log.debug", "");
 
+    static {
+        if (new File(CONFIGURATION_FILE).exists()) {
+            PropertyConfigurator.configure(CONFIGURATION_FILE);
+        } else {
+            BasicConfigurator.configure();
+        }
+        if (ASYNC_APPENDERS) {
+            wrapRootAppenders();
+        }
+        for (String stageName : DEBUG_STAGES.split(",")) {
+            for (LogStage stage : LogStage.values()) {
+                if ("all".equalsIgnoreCase(stageName.trim()) || stage.getStageName().equalsIgnoreCase(stageName.trim())) {
+                    stage.getLogger().setLevel(Level.DEBUG);
+                }
+            }
+        }
+    }
+
+    private static void wrapRootAppenders() {
+        List<Appender> appenders = new ArrayList<>();
+        for (Object appender : Collections.list(logger.getAllAppenders())) {
+            appenders.add((Appender) appender);
+        }
+        if (appenders.isEmpty()) {
+            return;
+        }
+        AsyncAppender asyncAppender = new AsyncAppender();
+        asyncAppender.setName("async");
+        asyncAppender.setBufferSize(Integer.getInteger("akura.log.bufferSize", 8192));
+        for (Appender appender : appenders) {
+            logger.removeAppender(appender);
+            asyncAppender.addAppender(appender);
+        }
+        logger.addAppender(asyncAppender);
+    }
 
     public static void Log(String s){
-        PropertyConfigurator.configure("log4j.properties");
         logger.info(s);
-//        try {
-//            APIConnection.sendSocketRequest("VALUE", s);
-//        } catch (IOException e) {
-//            e.printStackTrace();
-//        }
-        System.out.println(s);
+    }
+
+    public static void info(LogStage stage, String message) {
+        stage.getLogger().info(message);
+    }
+
+    public static void warn(LogStage stage, String message) {
+        stage.getLogger().warn(message);
+    }
+
+    public static void error(LogStage stage, String message, Throwable throwable) {
+        stage.getLogger().error(message, throwable);
+    }
+
+    public static boolean isDebugEnabled(LogStage stage) {
+        return stage.getLogger().isDebugEnabled();
+    }
+
+    /**
+     * Log a debug message, the supplier is only called when debug output is enabled for the stage
+     *
+     * @param stage
+     * @param message
+     */
+    public static void debug(LogStage stage, Supplier<String> message) {
+        if (stage.getLogger().isDebugEnabled()) {
+            stage.getLogger().debug(message.get());
+        }
+    }
+
+    /**
+     * Log a pretty printed json dump of a value under a title.
+     * The value is only serialized when debug output is enabled for the stage, and nothing is allocated otherwise.
+     *
+     * @param stage
+     * @param title
+     * @param value
+     */
+    public static void debugJson(LogStage stage, String title, Object value) {
+        if (stage.getLogger().isDebugEnabled()) {
+            stage.getLogger().debug("----------------" + title + "----------------\n" + GsonProvider.pretty().toJson(value));
+        }
+    }
+
+    /**
+     * Flush and close the appenders, the async appender drains its buffer first
+     */
+    public static void shutdown() {
+        LogManager.shutdown();
     }
 }
@@ -0,0 +1,115 @@
+package akura.utility;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Application metrics: pipeline stage and remote call latencies, counters and gauges,
+ * exported in the Prometheus text format on /metrics.
+ */
+public final class Metrics {
+    private final static double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final static Map<String, LatencyHistogram> stageLatencies = new ConcurrentSkipListMap<>();
+    private final static Map<String, LatencyHistogram> remoteCallLatencies = new ConcurrentSkipListMap<>();
+    private final static Map<String, LongAdder> remoteCallErrors = new ConcurrentSkipListMap<>();
+    private final static Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Record the latency of a pipeline stage
+     *
+     * @param stage      - stage name, e.g. sentenceTokenize.
+     * @param startNanos - {@link System#nanoTime()} at the start of the stage.
+     */
+    public static void recordStage(String stage, long startNanos) {
+        stageLatencies.computeIfAbsent(stage, name -> new LatencyHistogram()).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record a remote call, its count is the histogram count
+     *
+     * @param method     - remote method name, e.g. analyzeSyntax.
+     * @param startNanos - {@link System#nanoTime()} at the start of the call.
+     */
+    public static void recordRemoteCall(String method, long startNanos) {
+        remoteCallLatencies.computeIfAbsent(method, name -> new LatencyHistogram()).record(System.nanoTime() - startNanos);
+    }
+
+    public static void recordRemoteCallError(String method) {
+        remoteCallErrors.computeIfAbsent(method, name -> new LongAdder()).increment();
+    }
+
+    /**
+     * Register a value read on every scrape, e.g. cache hit counts. Registering a name again replaces the gauge.
+     *
+     * @param name     - metric name.
+     * @param help     - help text.
+     * @param counter  - true when the value only grows.
+     * @param supplier
+     */
+    public static void registerGauge(String name, String help, boolean counter, LongSupplier supplier) {
+        gauges.put(name, new Gauge(help, counter, supplier));
+    }
+
+    public static LatencyHistogram getStageLatency(String stage) {
+        return stageLatencies.get(stage);
+    }
+
+    /**
+     * Render all metrics in the Prometheus text exposition format
+     *
+     * @return
+     */
+    public static String scrape() {
+        StringBuilder output = new StringBuilder(4096);
+        writeSummary(output, "akura_stage_latency_seconds", "Latency of the extraction pipeline stages.", "stage", stageLatencies);
+        writeSummary(output, "akura_remote_call_latency_seconds", "Latency of remote api calls, cache hits excluded.", "method", remoteCallLatencies);
+
+        output.append("# HELP akura_remote_call_errors_total Failed remote api calls.\n");
+        output.append("# TYPE akura_remote_call_errors_total counter\n");
+        for (Map.Entry<String, LongAdder> entry : remoteCallErrors.entrySet()) {
+            output.append("akura_remote_call_errors_total{method=\"").append(entry.getKey()).append("\"} ")
+                    .append(entry.getValue().sum()).append('\n');
+        }
+
+        new ConcurrentSkipListMap<>(gauges).forEach((name, gauge) -> {
+            output.append("# HELP ").append(name).append(' ').append(gauge.help).append('\n');
+            output.append("# TYPE ").append(name).append(gauge.counter ? " counter\n" : " gauge\n");
+            output.append(name).append(' ').append(gauge.supplier.getAsLong()).append('\n');
+        });
+        return output.toString();
+    }
+
+    private static void writeSummary(StringBuilder output, String name, String help, String label, Map<String, LatencyHistogram> histograms) {
+        output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        output.append("# TYPE ").append(name).append(" summary\n");
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            String labelValue = label + "=\"" + entry.getKey() + "\"";
+            for (double quantile : QUANTILES) {
+                output.append(name).append('{').append(labelValue).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(histogram.getQuantileSeconds(quantile)).append('\n');
+            }
+            output.append(name).append("_sum{").append(labelValue).append("} ").append(histogram.getSumSeconds()).append('\n');
+            output.append(name).append("_count{").append(labelValue).append("} ").append(histogram.getCount()).append('\n');
+        }
+    }
+
+    private static class Gauge {
+        private final String help;
+        private final boolean counter;
+        private final LongSupplier supplier;
+
+        private Gauge(String help, boolean counter, LongSupplier supplier) {
+            this.help = help;
+            this.counter = counter;
+            this.supplier = supplier;
+        }
+    }
+}
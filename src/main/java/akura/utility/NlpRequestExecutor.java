@@ -0,0 +1,160 @@
+package akura.utility;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for remote NLP requests.
+ * At most {@link EngineConfiguration#NLP_REQUEST_PARALLELISM} requests run at the same time, the rest are queued.
+ * Tasks submitted here must not submit and wait on further tasks of this executor.
+ */
+public class NlpRequestExecutor {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(1, EngineConfiguration.NLP_REQUEST_PARALLELISM),
+            runnable -> {
+                Thread thread = new Thread(runnable, "nlp-request-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Submit a single request
+     *
+     * @param task
+     * @param <T>
+     * @return
+     */
+    public static <T> Future<T> submit(Callable<T> task) {
+        return EXECUTOR.submit(task);
+    }
+
+    /**
+     * Run a single request as a completable future
+     *
+     * @param task
+     * @param <T>
+     * @return
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, EXECUTOR);
+    }
+
+    /**
+     * Cancel the request futures a derived future depends on when the derived future is cancelled.
+     * Cancelling a future built with thenApply or thenCombine does not reach the requests behind it, so without this
+     * a timed out review would leave its queued requests to run anyway.
+     *
+     * @param derived - future computed from the requests.
+     * @param sources - request futures from {@link #supplyAsync(Supplier)}.
+     * @param <T>
+     * @return the derived future
+     */
+    public static <T> CompletableFuture<T> cancelWith(CompletableFuture<T> derived, CompletableFuture<?>... sources) {
+        derived.whenComplete((result, failure) -> {
+            if (derived.isCancelled()) {
+                for (CompletableFuture<?> source : sources) {
+                    source.cancel(true);
+                }
+            }
+        });
+        return derived;
+    }
+
+    /**
+     * Apply the function to every input concurrently and return the results in input order
+     *
+     * @param inputs
+     * @param function
+     * @param <T>
+     * @param <R>
+     * @return
+     */
+    public static <T, R> List<R> mapInOrder(List<T> inputs, Function<T, R> function) {
+        List<R> results = new ArrayList<>(inputs.size());
+        if (inputs.size() == 1) {
+            results.add(function.apply(inputs.get(0)));
+            return results;
+        }
+        List<Future<R>> futures = new ArrayList<>(inputs.size());
+        for (T input : inputs) {
+            futures.add(EXECUTOR.submit(() -> function.apply(input)));
+        }
+        try {
+            for (Future<R> future : futures) {
+                results.add(await(future));
+            }
+        } finally {
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Wait for a submitted request, rethrowing its failure unchecked
+     *
+     * @param future
+     * @param <T>
+     * @return
+     */
+    public static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for an NLP request");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Wait for several requests with one combined timeout, cancelling them all when it expires.
+     * Futures derived from requests must be linked to them with {@link #cancelWith} for the requests to be cancelled too.
+     *
+     * @param timeoutMillis
+     * @param futures
+     * @throws IOException when a request failed or the timeout expired
+     */
+    public static void awaitAll(long timeoutMillis, CompletableFuture<?>... futures) throws IOException {
+        try {
+            CompletableFuture.allOf(futures).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            for (CompletableFuture<?> future : futures) {
+                future.cancel(true);
+            }
+            throw new IOException("NLP requests timed out after " + timeoutMillis + "ms");
+        } catch (InterruptedException e) {
+            for (CompletableFuture<?> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for NLP requests");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Stop accepting requests. Called from the application shutdown hook.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+}
@@ -0,0 +1,215 @@
+package akura.utility;
+
+import com.google.cloud.language.v1beta2.Document;
+import com.google.cloud.language.v1beta2.EncodingType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Content addressed cache of Google NLP responses.
+ * Responses are keyed by a hash of the method, the document text and type and the encoding type.
+ * The in memory tier is a size bounded LRU with a time to live, the optional disk tier keeps the cache warm across restarts.
+ */
+public class NlpResponseCache {
+    private static NlpResponseCache instance;
+
+    private final Cache<String, Message> memoryCache;
+    private final Path directory;
+    private final long ttlMillis;
+    private final AtomicLong diskHits = new AtomicLong();
+
+    private NlpResponseCache(int maximumSize, long ttlMinutes, String directory) {
+        this.memoryCache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.directory = directory.isEmpty() ? null : Paths.get(directory);
+        if (this.directory != null) {
+            try {
+                Files.createDirectories(this.directory);
+            } catch (IOException e) {
+                Logger.error(LogStage.SERVICE, "Could not create the nlp cache directory " + this.directory, e);
+            }
+        }
+    }
+
+    /**
+     * Provide the application wide cache configured from {@link EngineConfiguration}
+     *
+     * @return
+     */
+    public static synchronized NlpResponseCache getInstance() {
+        if (instance == null) {
+            instance = new NlpResponseCache(
+                    EngineConfiguration.NLP_CACHE_SIZE,
+                    EngineConfiguration.NLP_CACHE_TTL_MINUTES,
+                    EngineConfiguration.NLP_CACHE_DIRECTORY
+            );
+            NlpResponseCache cache = instance;
+            Metrics.registerGauge("akura_nlp_cache_memory_hits_total", "Google NLP responses served from memory.", true, cache::getMemoryHitCount);
+            Metrics.registerGauge("akura_nlp_cache_disk_hits_total", "Google NLP responses served from disk.", true, cache::getDiskHitCount);
+            Metrics.registerGauge("akura_nlp_cache_misses_total", "Google NLP responses loaded from the api.", true, cache::getMissCount);
+            Metrics.registerGauge("akura_nlp_cache_evictions_total", "Google NLP responses evicted from memory.", true, cache::getEvictionCount);
+            Metrics.registerGauge("akura_nlp_cache_size", "Google NLP responses held in memory.", false, cache::getSize);
+        }
+        return instance;
+    }
+
+    /**
+     * Return the cached response of the given request or load it. Concurrent lookups of the same key share one load.
+     *
+     * @param method       - name of the remote method.
+     * @param document     - analysed document.
+     * @param encodingType - requested encoding type.
+     * @param parser       - parser of the response type, used by the disk tier.
+     * @param loader       - remote call.
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Message> T get(String method, Document document, EncodingType encodingType, Parser<T> parser, Supplier<T> loader) {
+        String key = key(method, document, encodingType);
+        try {
+            return (T) memoryCache.get(key, () -> {
+                T response = readFromDisk(key, parser);
+                if (response == null) {
+                    long startNanos = System.nanoTime();
+                    try {
+                        response = loader.get();
+                    } catch (RuntimeException e) {
+                        Metrics.recordRemoteCallError(method);
+                        throw e;
+                    }
+                    Metrics.recordRemoteCall(method, startNanos);
+                    writeToDisk(key, response);
+                }
+                return response;
+            });
+        } catch (UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new UncheckedExecutionException(e.getCause());
+        }
+    }
+
+    /**
+     * Whether the response of a request is held in memory or on disk, without loading it
+     *
+     * @param method
+     * @param document
+     * @param encodingType
+     * @return
+     */
+    public boolean contains(String method, Document document, EncodingType encodingType) {
+        String key = key(method, document, encodingType);
+        if (memoryCache.getIfPresent(key) != null) {
+            return true;
+        }
+        if (directory == null) {
+            return false;
+        }
+        Path file = directory.resolve(key + ".pb");
+        try {
+            return Files.exists(file) && System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() <= ttlMillis;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private String key(String method, Document document, EncodingType encodingType) {
+        return Hashing.sha256().newHasher()
+                .putString(method, StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(document.getType().name(), StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(encodingType.name(), StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(document.getContent(), StandardCharsets.UTF_8)
+                .hash()
+                .toString();
+    }
+
+    private <T extends Message> T readFromDisk(String key, Parser<T> parser) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(key + ".pb");
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > ttlMillis) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            T response = parser.parseFrom(Files.readAllBytes(file));
+            diskHits.incrementAndGet();
+            return response;
+        } catch (InvalidProtocolBufferException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+            return null;
+        } catch (IOException e) {
+            Logger.error(LogStage.SERVICE, "Could not read the cached nlp response " + file, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, Message response) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Path temporaryFile = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporaryFile, response.toByteArray());
+            Files.move(temporaryFile, directory.resolve(key + ".pb"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Logger.error(LogStage.SERVICE, "Could not cache the nlp response " + key, e);
+        }
+    }
+
+    public long getHitCount() {
+        return memoryCache.stats().hitCount() + diskHits.get();
+    }
+
+    public long getMemoryHitCount() {
+        return memoryCache.stats().hitCount();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getMissCount() {
+        return memoryCache.stats().missCount() - diskHits.get();
+    }
+
+    public long getEvictionCount() {
+        return memoryCache.stats().evictionCount();
+    }
+
+    public long getSize() {
+        return memoryCache.size();
+    }
+}
@@ -0,0 +1,47 @@
+package akura.utility;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Concept resolver backed by the live Microsoft concept graph service.
+ */
+public class RemoteConceptResolver implements ConceptResolver {
+    private final static String DATA_GRAPH_URL = "http://concept.research.microsoft.com/api/Concept/ScoreByProb?instance=";
+
+    /**
+     * Fetch the top concept of a short text using the shared http client
+     *
+     * @param phrase - short text.
+     * @return concept or null when the concept graph has no concept for the text
+     * @throws IOException
+     */
+    @Override
+    public String resolve(String phrase) throws IOException {
+        String url = DATA_GRAPH_URL.concat(phrase.trim()).concat("&topK=1").replaceAll(" ", "%20");
+        HttpGet getRequest = new HttpGet(url);
+        long startNanos = System.nanoTime();
+        try (CloseableHttpResponse httpResponse = APIConnection.getHttpClient().execute(getRequest)) {
+            HttpEntity httpEntity = httpResponse.getEntity();
+            JSONParser jsonParser = new JSONParser();
+            JSONObject jsonObject = (JSONObject) jsonParser.parse(EntityUtils.toString(httpEntity, "UTF-8"));
+            Iterator<?> concepts = jsonObject.keySet().iterator();
+            Metrics.recordRemoteCall("conceptGraph", startNanos);
+            return concepts.hasNext() ? concepts.next().toString() : null;
+        } catch (ParseException e) {
+            Metrics.recordRemoteCallError("conceptGraph");
+            throw new IOException(e);
+        } catch (IOException e) {
+            Metrics.recordRemoteCallError("conceptGraph");
+            throw e;
+        }
+    }
+}
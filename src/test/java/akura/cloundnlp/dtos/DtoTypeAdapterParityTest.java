@@ -0,0 +1,98 @@
+package akura.cloundnlp.dtos;
+
+import akura.utility.GsonProvider;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The streaming adapters of {@link DtoTypeAdapterFactory} must write and read the same json as Gson's reflective
+ * adapters. The dtos are filled through reflection, so a field added to a dto but not to its adapter fails here.
+ */
+public class DtoTypeAdapterParityTest {
+    private static final Class<?>[] ADAPTED_CLASSES = {
+            OntologyMapDto.class,
+            EntityDto.class,
+            SyntaxDto.class,
+            FinalEntityTagDto.class,
+            SpecificationDto.class,
+            SpecRelationshipDto.class
+    };
+
+    private final Gson reflectiveGson = new GsonBuilder().create();
+    private final Gson streamingGson = GsonProvider.compact();
+
+    @Test
+    public void writesTheReflectiveJsonOfFilledDtos() throws Exception {
+        for (Class<?> dtoClass : ADAPTED_CLASSES) {
+            Object dto = fill(dtoClass);
+            assertEquals(dtoClass.getSimpleName(), reflectiveGson.toJson(dto), streamingGson.toJson(dto));
+        }
+    }
+
+    @Test
+    public void writesTheReflectiveJsonOfEmptyDtos() throws Exception {
+        for (Class<?> dtoClass : ADAPTED_CLASSES) {
+            Object dto = dtoClass.newInstance();
+            assertEquals(dtoClass.getSimpleName(), reflectiveGson.toJson(dto), streamingGson.toJson(dto));
+        }
+    }
+
+    @Test
+    public void readsEveryFieldOfTheReflectiveJson() throws Exception {
+        for (Class<?> dtoClass : ADAPTED_CLASSES) {
+            String json = reflectiveGson.toJson(fill(dtoClass));
+            assertEquals(dtoClass.getSimpleName(), json, reflectiveGson.toJson(streamingGson.fromJson(json, dtoClass)));
+        }
+    }
+
+    /**
+     * Create a dto with every field set, nested dtos, lists and maps included
+     */
+    private static Object fill(Class<?> dtoClass) throws Exception {
+        Object dto = dtoClass.newInstance();
+        for (Field field : dtoClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            field.set(dto, sample(field.getGenericType(), field.getName()));
+        }
+        return dto;
+    }
+
+    private static Object sample(Type type, String name) throws Exception {
+        if (type == String.class) {
+            return name + " value";
+        } else if (type == float.class || type == Float.class) {
+            return 0.25f;
+        } else if (type == double.class || type == Double.class) {
+            return 0.5d;
+        } else if (type == int.class || type == Integer.class) {
+            return 3;
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            if (parameterizedType.getRawType() == List.class) {
+                List<Object> list = new ArrayList<>();
+                list.add(sample(arguments[0], name));
+                return list;
+            } else if (parameterizedType.getRawType() == Map.class) {
+                Map<Object, Object> map = new LinkedHashMap<>();
+                map.put(sample(arguments[0], name + " key"), sample(arguments[1], name));
+                return map;
+            }
+        } else if (type instanceof Class && ((Class<?>) type).getPackage() == DtoTypeAdapterParityTest.class.getPackage()) {
+            return fill((Class<?>) type);
+        }
+        throw new IllegalArgumentException("No sample value for " + type + " " + name);
+    }
+}
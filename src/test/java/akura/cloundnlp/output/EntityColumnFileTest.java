@@ -0,0 +1,197 @@
+package akura.cloundnlp.output;
+
+import akura.cloundnlp.dtos.FinalEntityTagDto;
+import akura.cloundnlp.dtos.OntologyMapDto;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class EntityColumnFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackWhatWasWritten() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("entities.akc");
+        try (EntityColumnWriter writer = new EntityColumnWriter(file, 2)) {
+            writer.append(review("r1", tag("battery", "OTHER", 0.5f, 0.25f, "battery life", "NN")));
+            writer.append(review("r2", tag("écran", "CONSUMER_GOOD", -0.75f, 0.5f, null, null), tag("camera", "OTHER", 0f, 1f, "camera", "NN")));
+        }
+
+        List<String[]> rows = readAll(file, EnumSet.allOf(EntityColumn.class));
+
+        assertEquals(3, rows.size());
+        assertArrayEquals(new String[]{"r1", "battery", "OTHER", "0.5", "0.25", "battery life", "NN"}, rows.get(0));
+        assertArrayEquals(new String[]{"r2", "écran", "CONSUMER_GOOD", "-0.75", "0.5", null, null}, rows.get(1));
+        assertArrayEquals(new String[]{"r2", "camera", "OTHER", "0.0", "1.0", "camera", "NN"}, rows.get(2));
+    }
+
+    @Test
+    public void appendsToAnExistingFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("entities.akc");
+        try (EntityColumnWriter writer = new EntityColumnWriter(file, 10)) {
+            writer.append(review("r1", tag("battery", "OTHER", 0.5f, 0.25f, null, null)));
+        }
+        try (EntityColumnWriter writer = new EntityColumnWriter(file, 10)) {
+            writer.append(review("r2", tag("camera", "OTHER", 0f, 1f, null, null)));
+        }
+
+        List<String[]> rows = readAll(file, EnumSet.of(EntityColumn.REVIEW_ID));
+
+        assertEquals(2, rows.size());
+        assertEquals("r1", rows.get(0)[EntityColumn.REVIEW_ID.ordinal()]);
+        assertEquals("r2", rows.get(1)[EntityColumn.REVIEW_ID.ordinal()]);
+    }
+
+    @Test
+    public void loadsOnlyTheRequestedColumns() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("entities.akc");
+        try (EntityColumnWriter writer = new EntityColumnWriter(file, 10)) {
+            writer.append(review("r1", tag("battery", "OTHER", 0.5f, 0.25f, "battery life", "NN")));
+        }
+
+        List<EntityColumnReader.Block> blocks = new ArrayList<>();
+        try (EntityColumnReader reader = new EntityColumnReader(file)) {
+            assertEquals(1, reader.scan(EnumSet.of(EntityColumn.SALIENCE, EntityColumn.NOUN_COMBINATION), blocks::add));
+        }
+
+        EntityColumnReader.Block block = blocks.get(0);
+        assertEquals(0.25f, block.getFloat(EntityColumn.SALIENCE, 0), 0f);
+        assertEquals("battery life", block.getString(EntityColumn.NOUN_COMBINATION, 0));
+        try {
+            block.getString(EntityColumn.TEXT, 0);
+            fail("skipped column was loaded");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            block.getFloat(EntityColumn.SENTIMENT, 0);
+            fail("skipped column was loaded");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void dropsABlockTruncatedInItsColumnData() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("entities.akc");
+        long firstBlockEnd = writeTwoBlocks(file);
+        truncate(file, Files.size(file) - 3);
+
+        assertTruncatedAfterFirstBlock(file, firstBlockEnd);
+    }
+
+    @Test
+    public void dropsABlockTruncatedInItsHeader() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("entities.akc");
+        long firstBlockEnd = writeTwoBlocks(file);
+        // block magic, row count, column count and half of the first column header
+        truncate(file, firstBlockEnd + 12 + 4);
+
+        assertTruncatedAfterFirstBlock(file, firstBlockEnd);
+    }
+
+    @Test
+    public void refusesAFileWithACorruptBlock() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("entities.akc");
+        long firstBlockEnd = writeTwoBlocks(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 0x12345678), firstBlockEnd);
+        }
+        long size = Files.size(file);
+
+        try {
+            new EntityColumnWriter(file, 10);
+            fail("writer opened a file with a corrupt block");
+        } catch (IOException expected) {
+        }
+        assertEquals("the corrupt file must be left as it is", size, Files.size(file));
+        try (EntityColumnReader reader = new EntityColumnReader(file)) {
+            reader.scan(EnumSet.allOf(EntityColumn.class), block -> {
+            });
+            fail("reader scanned past a corrupt block");
+        } catch (IOException expected) {
+        }
+    }
+
+    /**
+     * Write two blocks of one row
+     *
+     * @return offset of the second block
+     */
+    private static long writeTwoBlocks(Path file) throws IOException {
+        long firstBlockEnd;
+        try (EntityColumnWriter writer = new EntityColumnWriter(file, 1)) {
+            writer.append(review("r1", tag("battery", "OTHER", 0.5f, 0.25f, null, null)));
+            firstBlockEnd = Files.size(file);
+            writer.append(review("r2", tag("camera", "OTHER", 0f, 1f, null, null)));
+        }
+        return firstBlockEnd;
+    }
+
+    private static void assertTruncatedAfterFirstBlock(Path file, long firstBlockEnd) throws IOException {
+        List<String[]> rows = readAll(file, EnumSet.allOf(EntityColumn.class));
+        assertEquals(1, rows.size());
+        assertEquals("r1", rows.get(0)[EntityColumn.REVIEW_ID.ordinal()]);
+
+        try (EntityColumnWriter writer = new EntityColumnWriter(file, 10)) {
+            assertEquals(firstBlockEnd, Files.size(file));
+            writer.append(review("r3", tag("screen", "OTHER", 0f, 1f, null, null)));
+        }
+        rows = readAll(file, EnumSet.of(EntityColumn.REVIEW_ID));
+        assertEquals(2, rows.size());
+        assertEquals("r3", rows.get(1)[EntityColumn.REVIEW_ID.ordinal()]);
+    }
+
+    private static List<String[]> readAll(Path file, Set<EntityColumn> columns) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (EntityColumnReader reader = new EntityColumnReader(file)) {
+            long rowCount = reader.scan(columns, block -> {
+                for (int row = 0; row < block.getRowCount(); row++) {
+                    String[] values = new String[EntityColumn.values().length];
+                    for (EntityColumn column : columns) {
+                        values[column.ordinal()] = column.isStringColumn()
+                                ? block.getString(column, row)
+                                : String.valueOf(block.getFloat(column, row));
+                    }
+                    rows.add(values);
+                }
+            });
+            assertEquals(rows.size(), rowCount);
+        }
+        return rows;
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    private static OntologyMapDto review(String reviewId, FinalEntityTagDto... tags) {
+        OntologyMapDto ontologyMapDto = new OntologyMapDto();
+        ontologyMapDto.setReviewId(reviewId);
+        ontologyMapDto.setFinalEntityTaggedList(new ArrayList<>(Arrays.asList(tags)));
+        return ontologyMapDto;
+    }
+
+    private static FinalEntityTagDto tag(String text, String category, float sentiment, float salience,
+                                         String nounCombination, String nounCombinationCategory) {
+        FinalEntityTagDto finalEntityTagDto = new FinalEntityTagDto();
+        finalEntityTagDto.setText(text);
+        finalEntityTagDto.setCategory(category);
+        finalEntityTagDto.setSentiment(sentiment);
+        finalEntityTagDto.setSalience(salience);
+        finalEntityTagDto.setNounCombination(nounCombination);
+        finalEntityTagDto.setNounCombinationCategory(nounCombinationCategory);
+        return finalEntityTagDto;
+    }
+}